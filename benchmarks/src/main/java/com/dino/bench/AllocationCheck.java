@@ -0,0 +1,57 @@
+package com.dino.bench;
+
+import com.dino.GameMode;
+import com.dino.GameWorld;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Verifies that the steady-state simulation tick allocates nothing.
+ * Exits with status 1 if any tick in the measured window allocated memory.
+ *
+ * Usage: java -cp target/benchmarks.jar com.dino.bench.AllocationCheck
+ */
+public class AllocationCheck {
+    private static final double DT = 1.0 / 60;
+    private static final int WARMUP_TICKS = 50_000;
+    private static final int MEASURED_TICKS = 100_000;
+    private static final int LIVE_OBSTACLES = 100;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        // 第一次呼叫本身會配置記憶體，先呼叫一次
+        threads.getThreadAllocatedBytes(threadId);
+        boolean ok = true;
+
+        for (GameMode mode : GameMode.values()) {
+            GameWorld world = new GameWorld(mode);
+            // 關卡長度足夠整段量測都不會結束 (重新開始會建立新的玩家)
+            double length = (WARMUP_TICKS + MEASURED_TICKS + 1_000) * 10.0;
+            world.loadLevel(SyntheticLevels.ceilingField(LIVE_OBSTACLES, length));
+            for (int i = 0; i < WARMUP_TICKS; i++) {
+                world.tick(DT);
+            }
+
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_TICKS; i++) {
+                world.tick(DT);
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+            boolean running = !world.isLevelComplete() && !world.isDying();
+            System.out.printf("%s: %d tick 共配置 %d bytes (%.3f bytes/tick)，新建障礙物 %d，重用 %d%n", mode,
+                    MEASURED_TICKS, allocated, (double) allocated / MEASURED_TICKS, world.getPool().getCreated(),
+                    world.getPool().getReused());
+            if (!running || allocated > 0) {
+                ok = false;
+            }
+        }
+        if (!ok) {
+            System.out.println("失敗：穩定狀態的 tick 仍有配置記憶體");
+            System.exit(1);
+        }
+        System.out.println("通過：穩定狀態的 tick 不配置記憶體");
+    }
+}
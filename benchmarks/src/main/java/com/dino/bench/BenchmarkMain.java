@@ -0,0 +1,37 @@
+package com.dino.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar.
+ * Without arguments runs every benchmark with the GC profiler and writes the
+ * results as JSON to jmh-result.json; with arguments behaves like the
+ * standard JMH command line (e.g. "TickBenchmark -rf json -rff out.json").
+ */
+public class BenchmarkMain {
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        runAll();
+    }
+
+    private static void runAll() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include("com\\.dino\\.bench\\..*")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT_FILE)
+                .build();
+        new Runner(options).run();
+        System.out.println("結果已寫入 " + RESULT_FILE);
+    }
+}
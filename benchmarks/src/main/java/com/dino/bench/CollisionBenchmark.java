@@ -0,0 +1,78 @@
+package com.dino.bench;
+
+import com.dino.Dino;
+import com.dino.LemonObstacle;
+import com.dino.PlatformObstacle;
+import com.dino.Player;
+import com.dino.RegularObstacle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the per-obstacle collision checks. Each invocation checks the
+ * same obstacle against a player that alternates between a hit and a miss.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionBenchmark {
+    private static final double HIT_Y = 480;
+    private static final double MISS_Y = 100;
+
+    private Player player;
+    private RegularObstacle regular;
+    private PlatformObstacle platform;
+    private LemonObstacle lemon;
+    private boolean flip;
+
+    @Setup
+    public void setUp() {
+        player = new Dino();
+        // 把障礙物放到玩家所在的 x
+        regular = new RegularObstacle(50, 50, 500);
+        regular.setX(Player.START_X);
+        platform = new PlatformObstacle(50, 50, 500);
+        platform.setX(Player.START_X);
+        // 檸檬障礙物只在警示結束的那個 tick 判定
+        lemon = new LemonObstacle(800, 60, 490);
+        lemon.update(2.5);
+    }
+
+    private void movePlayer() {
+        flip = !flip;
+        player.setY(flip ? HIT_Y : MISS_Y);
+        player.setYVelocity(flip ? 1 : -1);
+    }
+
+    @Benchmark
+    public void regular(Blackhole bh) {
+        movePlayer();
+        bh.consume(regular.getColide(player));
+    }
+
+    @Benchmark
+    public void platform(Blackhole bh) {
+        movePlayer();
+        bh.consume(platform.getColide(player));
+    }
+
+    @Benchmark
+    public void lemon(Blackhole bh) {
+        movePlayer();
+        bh.consume(lemon.getColide(player));
+    }
+}
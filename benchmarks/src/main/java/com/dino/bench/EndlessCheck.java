@@ -0,0 +1,49 @@
+package com.dino.bench;
+
+import com.dino.GameMode;
+import com.dino.LevelSolver;
+import com.dino.ProceduralSpawnSource;
+
+/**
+ * Verifies that endless levels are passable, as ProceduralSpawnSource promises:
+ * runs the LevelSolver on a range of seeds in both modes, up to past the
+ * distance where the difficulty stops ramping up.
+ * Exits with status 1 if any seed cannot be passed.
+ *
+ * Usage: java -cp target/benchmarks.jar com.dino.bench.EndlessCheck [seeds]
+ */
+public class EndlessCheck {
+    private static final int TICK_RATE = 60;
+    private static final int BEAM_WIDTH = 4096;
+    private static final int DEFAULT_SEEDS = 16;
+
+    public static void main(String[] args) {
+        int seeds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SEEDS;
+        boolean ok = true;
+
+        for (GameMode mode : GameMode.values()) {
+            long start = System.nanoTime();
+            int failed = 0;
+            for (long seed = 1; seed <= seeds; seed++) {
+                String level = ProceduralSpawnSource.levelName(mode, seed);
+                LevelSolver.Result result = new LevelSolver(level, ProceduralSpawnSource.open(level), mode,
+                        TICK_RATE, BEAM_WIDTH).solve();
+                if (!result.isSolvable()) {
+                    failed++;
+                    System.out.printf("%s 無法通過，第一個無法通過的障礙物: spawnTriggerX = %.0f%n", level,
+                            result.getBlockingSpawnTriggerX());
+                }
+            }
+            System.out.printf("%s: %d 個種子，%d 個無法通過，耗時 %.1f 秒%n", mode, seeds, failed,
+                    (System.nanoTime() - start) / 1e9);
+            if (failed > 0) {
+                ok = false;
+            }
+        }
+        if (!ok) {
+            System.out.println("失敗：有無盡關卡無法通過 (可用 LevelSolver <關卡> 查看細節)");
+            System.exit(1);
+        }
+        System.out.println("通過：所有無盡關卡都可以通過");
+    }
+}
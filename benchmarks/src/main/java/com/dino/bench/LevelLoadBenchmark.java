@@ -0,0 +1,78 @@
+package com.dino.bench;
+
+import com.dino.BinaryLevel;
+import com.dino.LevelCompiler;
+import com.dino.LevelData;
+import com.dino.LevelLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the bundled levels and of a synthetic 100k-line level.
+ * Files are read into memory first so that only parsing is measured.
+ * openCompiled maps the same level compiled by LevelCompiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LevelLoadBenchmark {
+    private static final String SYNTHETIC = "synthetic-100k";
+
+    @Param({ "/level1.txt", "/level2.txt", SYNTHETIC })
+    public String level;
+
+    private byte[] content;
+    private Path compiled;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (level.equals(SYNTHETIC)) {
+            content = SyntheticLevels.text(100_000).getBytes(StandardCharsets.UTF_8);
+        } else {
+            try (InputStream is = LevelLoader.open(level)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                is.transferTo(out);
+                content = out.toByteArray();
+            }
+        }
+        compiled = Files.createTempFile("bench", BinaryLevel.EXTENSION);
+        LevelCompiler.compile(LevelLoader.parse(new ByteArrayInputStream(content)), compiled);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(compiled);
+    }
+
+    @Benchmark
+    public LevelData parse() throws IOException {
+        return LevelLoader.parse(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public BinaryLevel openCompiled() throws IOException {
+        return BinaryLevel.open(compiled);
+    }
+}
@@ -0,0 +1,62 @@
+package com.dino.bench;
+
+import com.dino.GameWorld;
+import com.dino.LevelData;
+import com.dino.LevelObstacleData;
+import com.dino.ObstacleKind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generated levels for the benchmarks.
+ */
+final class SyntheticLevels {
+    static final double OBSTACLE_SIZE = 20;
+
+    private SyntheticLevels() {
+    }
+
+    /**
+     * Obstacles hanging at the top of the screen, spaced so that about
+     * liveObstacles of them are on screen at any time. They never touch a
+     * player standing on the ground, so the level runs until its end.
+     *
+     * @param liveObstacles The number of obstacles on screen in steady state
+     * @param length        The level length in pixels
+     */
+    static LevelData ceilingField(int liveObstacles, double length) {
+        List<LevelObstacleData> sequence = new ArrayList<>();
+        if (liveObstacles <= 0) {
+            // 只放一個在最後，讓關卡有終點
+            sequence.add(new LevelObstacleData(length, OBSTACLE_SIZE, OBSTACLE_SIZE, 0, ObstacleKind.REGULAR));
+            return new LevelData(null, sequence);
+        }
+        double spacing = (GameWorld.WIDTH + OBSTACLE_SIZE) / liveObstacles;
+        int i = 0;
+        for (double trigger = 0; trigger <= length; trigger += spacing, i++) {
+            // 交錯普通與平台障礙物，兩種碰撞判定都會被執行
+            ObstacleKind kind = i % 2 == 0 ? ObstacleKind.REGULAR : ObstacleKind.PLATFORM;
+            sequence.add(new LevelObstacleData(trigger, OBSTACLE_SIZE, OBSTACLE_SIZE, 0, kind));
+        }
+        return new LevelData(null, sequence);
+    }
+
+    /**
+     * A level file in the text format with the given number of obstacle lines.
+     */
+    static String text(int lines) {
+        StringBuilder sb = new StringBuilder(lines * 32);
+        sb.append("/music/Unity.MP3\n");
+        sb.append("# synthetic level\n");
+        String[] types = { "regular", "platform", "lemon" };
+        for (int i = 0; i < lines; i++) {
+            sb.append(i * 37.5).append(',')
+                    .append(40 + i % 3 * 10).append(".0,")
+                    .append(40 + i % 3 * 10).append(".0,")
+                    .append(100 + i % 400).append(".0,")
+                    .append(types[i % types.length]).append('\n');
+        }
+        return sb.toString();
+    }
+}
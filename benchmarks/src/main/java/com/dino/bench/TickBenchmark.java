@@ -0,0 +1,67 @@
+package com.dino.bench;
+
+import com.dino.GameMode;
+import com.dino.GameWorld;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulation tick (the equivalent of the old GameScene.updateGame) with a
+ * given number of live obstacles. Run with -prof gc for the allocation rate per tick.
+ * The obstacles hang above the player, so with the broad-phase in ObstacleField
+ * the cost should stay flat as their number grows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TickBenchmark {
+    private static final double DT = 1.0 / 60;
+    private static final double LEVEL_LENGTH = 200_000;
+
+    @Param({ "0", "10", "100", "1000", "10000" })
+    public int liveObstacles;
+
+    @Param({ "DINO", "WAVE" })
+    public GameMode mode;
+
+    private GameWorld world;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new GameWorld(mode);
+        world.loadLevel(SyntheticLevels.ceilingField(liveObstacles, LEVEL_LENGTH));
+        fillScreen();
+    }
+
+    @Benchmark
+    public GameWorld tick() {
+        if (world.isLevelComplete() || world.isDying()) {
+            world.reset();
+            fillScreen();
+        }
+        world.tick(DT);
+        return world;
+    }
+
+    // 先跑到畫面上布滿障礙物的穩定狀態
+    private void fillScreen() {
+        for (int i = 0; i < 120; i++) {
+            world.tick(DT);
+        }
+    }
+}
@@ -2,49 +2,97 @@ package com.dino;
 
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
 
 /**
  * Background class that handles the scrolling background of the game.
  * It loads the background image and renders it with a parallax scrolling
  * effect.
+ *
+ * The image is composited once, together with the ground, into a strip twice
+ * as wide as the screen. Every frame is then a single blit of a screen-sized
+ * window of the strip, which covers the whole canvas exactly once instead of
+ * drawing two images and painting the ground over them.
  */
 public class Background {
-    private Image backgroundImage;
+    private static final Color GROUND_COLOR = Color.DARKGRAY;
+
+    // 背景圖接兩次再加上地面，預先合成好的長條圖
+    private final Image strip;
+    private final int width;
+    private final int height;
     private double scrollPosition = 0;
     private final double scrollSpeed = 0.5; // Background scrolls at half the speed of obstacles for parallax effect
 
     /**
-     * Constructor that loads the background image.
-     * 
+     * Constructor that loads the background image and builds the strip. Safe
+     * to call from a background thread.
+     *
      * @param imagePath The path to the background image
      * @param width     The width of the background image
      * @param height    The height of the background image
      */
     public Background(String imagePath, double width, double height) {
         // Load background image
-        backgroundImage = new Image(getClass().getResourceAsStream(imagePath), width, height, false, false);
+        Image backgroundImage = ImageCache.getInstance().get(imagePath, width, height, false);
+        this.width = (int) Math.round(width);
+        this.height = (int) Math.round(height);
+        this.strip = compose(backgroundImage);
+    }
+
+    // 合成長條圖：[背景][背景]，底部再蓋上地面
+    private WritableImage compose(Image backgroundImage) {
+        WritableImage image = new WritableImage(width * 2, height);
+        PixelWriter writer = image.getPixelWriter();
+        PixelReader reader = backgroundImage.getPixelReader();
+        int imageWidth = Math.min(width, (int) backgroundImage.getWidth());
+        int imageHeight = Math.min(height, (int) backgroundImage.getHeight());
+        if (reader != null) {
+            writer.setPixels(0, 0, imageWidth, imageHeight, reader, 0, 0);
+            writer.setPixels(width, 0, imageWidth, imageHeight, reader, 0, 0);
+        }
+
+        int groundY = Math.min(GameWorld.GROUND_Y, height);
+        int groundHeight = height - groundY;
+        if (groundHeight > 0) {
+            int[] ground = new int[width * 2 * groundHeight];
+            Arrays.fill(ground, argb(GROUND_COLOR));
+            writer.setPixels(0, groundY, width * 2, groundHeight, PixelFormat.getIntArgbInstance(), ground, 0,
+                    width * 2);
+        }
+        return image;
+    }
+
+    private static int argb(Color color) {
+        return (int) Math.round(color.getOpacity() * 255) << 24 | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8 | (int) Math.round(color.getBlue() * 255);
     }
 
     /**
      * Updates the background scroll position based on the game world distance.
-     * 
+     *
      * @param gameWorldDistance The current distance traveled in the game world
      */
     public void update(double gameWorldDistance) {
         // Calculate background position based on gameWorldDistance for parallax effect
         // Use a slower scroll rate for the background to create depth
-        scrollPosition = (gameWorldDistance * scrollSpeed) % MainApplication.getWIDTH();
+        scrollPosition = (gameWorldDistance * scrollSpeed) % width;
     }
 
     /**
-     * Renders the background with a parallax scrolling effect.
-     * 
+     * Renders the background and the ground with a parallax scrolling effect.
+     *
      * @param gc The GraphicsContext to render on
      */
     public void render(GraphicsContext gc) {
-        // Draw the background image twice to create a seamless scrolling effect
-        gc.drawImage(backgroundImage, -scrollPosition, 0);
-        gc.drawImage(backgroundImage, MainApplication.getWIDTH() - scrollPosition, 0);
+        // 從長條圖取出目前畫面的一段，一次畫滿整個畫布
+        gc.drawImage(strip, scrollPosition, 0, width, height, 0, 0, width, height);
     }
 
     /**
@@ -53,4 +101,4 @@ public class Background {
     public void reset() {
         scrollPosition = 0;
     }
-}
\ No newline at end of file
+}
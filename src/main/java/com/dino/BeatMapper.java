@@ -0,0 +1,547 @@
+package com.dino;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Drafts a level from a music track. The decoded audio is streamed through
+ * a fixed set of buffers, one 10 ms frame at a time, so memory does not grow
+ * with the length of the track and the level rows are written as the beats
+ * are found:
+ * <ol>
+ * <li>Onsets: spectral flux of the log-magnitude spectrum, picked as local
+ * peaks above a moving average.</li>
+ * <li>Tempo: autocorrelation of the flux with an exponential decay, weighted
+ * towards 120 BPM.</li>
+ * <li>Beats: the next beat is predicted one period ahead and snapped to the
+ * strongest onset near it.</li>
+ * <li>Chart: accented beats become obstacles that reach the player on the
+ * beat, sized by how strong the accent is. The spacing rules of the endless
+ * generator keep the draft passable: blocks in DINO mode, columns whose gap
+ * follows the brightness of the sound in WAVE mode.</li>
+ * </ol>
+ * Only PCM audio (WAV, AIFF, AU) can be decoded without extra libraries.
+ *
+ * Usage: BeatMapper <audio.wav> <dino|wave> [output.txt] [songPath]
+ */
+public class BeatMapper {
+    // 每個分析畫格 10 毫秒
+    private static final double HOP_SECONDS = 0.01;
+    // 峰值必須是前後 3 格內的最大值，並高於前 10 格到後 7 格的平均
+    private static final int PRE_MAX = 3;
+    private static final int POST_MAX = 3;
+    private static final int PRE_AVG = 10;
+    private static final int POST_AVG = 7;
+    private static final int LOOKAHEAD = Math.max(POST_MAX, POST_AVG);
+    // 起音強度的環狀緩衝大小 (至少 PRE_AVG + LOOKAHEAD + 1)
+    private static final int HISTORY = 32;
+    // 兩個起音之間至少 100 毫秒
+    private static final int MIN_ONSET_FRAMES = 10;
+    // 門檻 = 局部平均 + DELTA_GAIN × 長期平均
+    private static final double DELTA_GAIN = 0.5;
+    private static final double COMPRESSION = 100;
+
+    // 速度範圍 60 ~ 200 BPM，偏好 120 BPM 附近 (相差一個八度權重約剩 0.6)
+    private static final double MIN_BEAT_SECONDS = 0.3;
+    private static final double MAX_BEAT_SECONDS = 1.0;
+    private static final double PREFERRED_BEAT_SECONDS = 0.5;
+    private static final double TEMPO_SPREAD_OCTAVES = 1.0;
+    // 自相關、平均強度與音色亮度的時間常數 (秒)
+    private static final double TEMPO_MEMORY_SECONDS = 8;
+    private static final double LEVEL_MEMORY_SECONDS = 3;
+    private static final double BRIGHTNESS_MEMORY_SECONDS = 0.5;
+    // 開始追蹤拍點前至少累積的長度
+    private static final double TEMPO_WARMUP_SECONDS = 3;
+    // 預測的拍點前後一個週期的 20% 內的起音算是這一拍，拍點往起音修正一半
+    private static final double BEAT_TOLERANCE = 0.2;
+    private static final double PHASE_GAIN = 0.5;
+
+    // 起音強度至少是平均的 0.8 倍才放障礙物，2 倍以上是最大的障礙物
+    private static final double ACCENT = 0.8;
+    private static final double MAX_ACCENT = 2.0;
+    // 障礙物在拍點時到達玩家：生成時在畫面右邊，玩家在 START_X
+    private static final double LEAD_DISTANCE = GameWorld.WIDTH - Player.START_X;
+    // 波浪模式的缺口高度，重拍比較窄；頻譜重心在這個範圍內對應缺口由下到上
+    private static final int WAVE_GAP_WIDE = 200;
+    private static final int WAVE_GAP_NARROW = 120;
+    private static final double DARK_HZ = 500;
+    private static final double BRIGHT_HZ = 5000;
+
+    private final GameMode mode;
+    private final BufferedWriter out;
+    private final float sampleRate;
+    private final int hop;
+    private final int fftSize;
+
+    // 最近 fftSize 個樣本 (單聲道) 與 FFT 的工作陣列
+    private final float[] samples;
+    private int filled = 0;
+    private long sampleCount = 0;
+    private final double[] hann;
+    private final double[] re;
+    private final double[] im;
+    private final double[] cos;
+    private final double[] sin;
+    private final int[] bitReverse;
+    private final double[] previousMagnitude;
+
+    // 最近 HISTORY 格的起音強度與頻譜重心
+    private final double[] flux = new double[HISTORY];
+    private final double[] centroid = new double[HISTORY];
+    private long frame = -1;
+    private long lastOnset = Long.MIN_VALUE / 2;
+    private double fluxMean = 0;
+    private double onsetMean = 0;
+    private double brightness = Math.sqrt(DARK_HZ * BRIGHT_HZ);
+    private final double levelAlpha;
+    private final double brightnessAlpha;
+
+    // 速度估計：novelty 是最近 maxLag 格的起音強度 (減去平均)
+    private final int minLag;
+    private final int maxLag;
+    private final double[] novelty;
+    private final double[] autocorrelation;
+    private final double[] tempoWeight;
+    private final double tempoDecay;
+    private final long warmupFrames;
+
+    // 拍點追蹤 (單位是畫格)
+    private double period = Double.NaN;
+    private double nextBeat = Double.NaN;
+    private long bestOnset = -1;
+    private double bestStrength = 0;
+    private int beats = 0;
+
+    // 譜面
+    private double lastTrigger = Double.NEGATIVE_INFINITY;
+    private double lastEnd = Double.NEGATIVE_INFINITY;
+    private double gapCenter = GameWorld.GROUND_Y - Player.PLAYER_HEIGHT / 2.0;
+    private int rows = 0;
+
+    public BeatMapper(GameMode mode, float sampleRate, BufferedWriter out) {
+        this.mode = mode;
+        this.out = out;
+        this.sampleRate = sampleRate;
+        this.hop = Math.max(1, Math.round(sampleRate * (float) HOP_SECONDS));
+        // 約 25 毫秒的視窗 (44.1 kHz 時 1024 個樣本)
+        this.fftSize = Integer.highestOneBit(Math.max(256, (int) (sampleRate / 40)));
+
+        samples = new float[fftSize];
+        hann = new double[fftSize];
+        re = new double[fftSize];
+        im = new double[fftSize];
+        cos = new double[fftSize / 2];
+        sin = new double[fftSize / 2];
+        bitReverse = new int[fftSize];
+        previousMagnitude = new double[fftSize / 2 + 1];
+        int bits = Integer.numberOfTrailingZeros(fftSize);
+        for (int i = 0; i < fftSize; i++) {
+            hann[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / fftSize);
+            bitReverse[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+        for (int i = 0; i < fftSize / 2; i++) {
+            cos[i] = Math.cos(2 * Math.PI * i / fftSize);
+            sin[i] = Math.sin(2 * Math.PI * i / fftSize);
+        }
+
+        double framesPerSecond = sampleRate / hop;
+        levelAlpha = 1 / (LEVEL_MEMORY_SECONDS * framesPerSecond);
+        brightnessAlpha = 1 / (BRIGHTNESS_MEMORY_SECONDS * framesPerSecond);
+        minLag = (int) Math.floor(MIN_BEAT_SECONDS * framesPerSecond);
+        maxLag = (int) Math.ceil(MAX_BEAT_SECONDS * framesPerSecond);
+        novelty = new double[maxLag + 2];
+        autocorrelation = new double[maxLag + 2];
+        tempoWeight = new double[maxLag + 2];
+        double preferredLag = PREFERRED_BEAT_SECONDS * framesPerSecond;
+        for (int lag = minLag - 1; lag <= maxLag + 1; lag++) {
+            double octaves = Math.log(lag / preferredLag) / Math.log(2) / TEMPO_SPREAD_OCTAVES;
+            tempoWeight[lag] = Math.exp(-0.5 * octaves * octaves);
+        }
+        tempoDecay = Math.exp(-1 / (TEMPO_MEMORY_SECONDS * framesPerSecond));
+        warmupFrames = (long) (TEMPO_WARMUP_SECONDS * framesPerSecond);
+    }
+
+    public static void main(String[] args) throws IOException {
+        GameMode mode = null;
+        if (args.length >= 2) {
+            try {
+                mode = GameMode.valueOf(args[1].toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                mode = null;
+            }
+        }
+        if (mode == null) {
+            System.err.println("用法: BeatMapper <音訊檔 (WAV/AIFF/AU)> <dino|wave> [輸出關卡.txt] [音樂路徑]");
+            System.exit(2);
+        }
+        String input = args[0];
+        String name = Paths.get(input).getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        String output = args.length > 2 ? args[2] : stem + ".txt";
+        // 預設是同名的 MP3，放在 resources/music 中
+        String songPath = args.length > 3 ? args[3] : "/music/" + stem + ".MP3";
+
+        long start = System.nanoTime();
+        BeatMapper mapper;
+        try (AudioInputStream audio = openPcm(new File(input));
+                BufferedWriter writer = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+            mapper = new BeatMapper(mode, audio.getFormat().getSampleRate(), writer);
+            mapper.writeHeader(name, songPath);
+            mapper.run(audio);
+        } catch (UnsupportedAudioFileException e) {
+            System.err.println("無法解碼 " + input + "：" + e.getMessage());
+            System.err.println("只支援 PCM 音訊 (WAV/AIFF/AU)，MP3 請先轉檔，例如 ffmpeg -i song.MP3 song.wav");
+            System.exit(1);
+            return;
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        double duration = mapper.getDurationSeconds();
+
+        System.out.printf("音訊: %s, 長度: %.1f 秒, 分析時間: %.2f 秒 (%.0f 倍速)%n", name, duration, elapsed,
+                duration / elapsed);
+        System.out.printf("速度: %.1f BPM, 拍點: %d, 障礙物: %d 行 -> %s%n", mapper.getBpm(), mapper.getBeats(),
+                mapper.getRows(), output);
+        if (mode == GameMode.WAVE) {
+            System.out.println("波浪模式的關卡需以 level2.txt 的名稱放在 -Ddino.levelDir 目錄中遊玩");
+        }
+    }
+
+    /**
+     * Opens an audio file as 16-bit signed little-endian PCM.
+     *
+     * @throws UnsupportedAudioFileException if the file cannot be decoded to PCM
+     */
+    public static AudioInputStream openPcm(File file) throws IOException, UnsupportedAudioFileException {
+        AudioInputStream source = AudioSystem.getAudioInputStream(file);
+        AudioFormat format = source.getFormat();
+        AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+        if (format.matches(pcm)) {
+            return source;
+        }
+        try {
+            return AudioSystem.getAudioInputStream(pcm, source);
+        } catch (IllegalArgumentException e) {
+            source.close();
+            throw new UnsupportedAudioFileException("無法轉換 " + format + " 為 PCM");
+        }
+    }
+
+    /**
+     * Writes the song path and the comment block that start every level file.
+     */
+    public void writeHeader(String audioName, String songPath) throws IOException {
+        out.write(songPath);
+        out.newLine();
+        out.write("# 由 BeatMapper 從 " + audioName + " 產生的草稿 (" + mode + " 模式)，試玩後再調整");
+        out.newLine();
+        out.write("# 格式: spawn_trigger_x,width,height,y_position,type");
+        out.newLine();
+        out.write("# 遊戲世界每秒前進600像素，障礙物在拍點時到達玩家");
+        out.newLine();
+        out.newLine();
+    }
+
+    /**
+     * Analyzes the whole stream, writing level rows as beats are found.
+     *
+     * @param audio 16-bit signed little-endian PCM, as returned by openPcm
+     */
+    public void run(AudioInputStream audio) throws IOException {
+        int channels = audio.getFormat().getChannels();
+        int frameBytes = channels * 2;
+        byte[] buffer = new byte[hop * frameBytes * 16];
+        int carry = 0;
+        int read;
+        while ((read = audio.read(buffer, carry, buffer.length - carry)) > 0) {
+            int total = carry + read;
+            int usable = total - total % frameBytes;
+            for (int i = 0; i < usable; i += frameBytes) {
+                int sum = 0;
+                for (int ch = 0; ch < channels; ch++) {
+                    int at = i + ch * 2;
+                    sum += (short) ((buffer[at] & 0xff) | (buffer[at + 1] << 8));
+                }
+                addSample(sum / (32768f * channels));
+            }
+            carry = total - usable;
+            System.arraycopy(buffer, usable, buffer, 0, carry);
+        }
+        // 結尾補上靜音的畫格，讓最後的起音也能被判斷
+        for (int i = 0; i < LOOKAHEAD; i++) {
+            push(0, 0);
+        }
+        out.newLine();
+        out.write(String.format(Locale.ROOT, "# 速度約 %.1f BPM，共 %d 拍", getBpm(), beats));
+        out.newLine();
+    }
+
+    public double getDurationSeconds() {
+        return sampleCount / (double) sampleRate;
+    }
+
+    /**
+     * @return The tempo at the end of the track, or NaN if no beat was found
+     */
+    public double getBpm() {
+        return 60 * sampleRate / hop / period;
+    }
+
+    public int getBeats() {
+        return beats;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    private void addSample(float sample) throws IOException {
+        sampleCount++;
+        samples[filled++] = sample;
+        if (filled == fftSize) {
+            analyzeFrame();
+            System.arraycopy(samples, hop, samples, 0, fftSize - hop);
+            filled = fftSize - hop;
+        }
+    }
+
+    // 一格的頻譜通量 (對數振幅增加量的總和) 與頻譜重心
+    private void analyzeFrame() throws IOException {
+        for (int i = 0; i < fftSize; i++) {
+            re[bitReverse[i]] = samples[i] * hann[i];
+            im[bitReverse[i]] = 0;
+        }
+        fft();
+        double rise = 0;
+        double sum = 0;
+        double weighted = 0;
+        for (int k = 1; k <= fftSize / 2; k++) {
+            double magnitude = Math.sqrt(re[k] * re[k] + im[k] * im[k]);
+            double level = Math.log1p(COMPRESSION * magnitude);
+            double diff = level - previousMagnitude[k];
+            if (diff > 0) {
+                rise += diff;
+            }
+            previousMagnitude[k] = level;
+            sum += magnitude;
+            weighted += k * magnitude;
+        }
+        push(rise, sum > 0 ? weighted / sum * sampleRate / fftSize : 0);
+    }
+
+    // 迭代式 radix-2 FFT，輸入已依位元反轉排列
+    private void fft() {
+        for (int size = 2; size <= fftSize; size <<= 1) {
+            int half = size >> 1;
+            int step = fftSize / size;
+            for (int i = 0; i < fftSize; i += size) {
+                for (int j = 0; j < half; j++) {
+                    double wr = cos[j * step];
+                    double wi = -sin[j * step];
+                    int a = i + j;
+                    int b = a + half;
+                    double tr = wr * re[b] - wi * im[b];
+                    double ti = wr * im[b] + wi * re[b];
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    private void push(double value, double frequency) throws IOException {
+        frame++;
+        int slot = (int) (frame % HISTORY);
+        flux[slot] = value;
+        centroid[slot] = frequency;
+        fluxMean += (value - fluxMean) * levelAlpha;
+        updateTempo(Math.max(0, value - fluxMean));
+        long candidate = frame - LOOKAHEAD;
+        if (candidate >= PRE_AVG) {
+            pick(candidate);
+        }
+    }
+
+    private double fluxAt(long index) {
+        return flux[(int) (index % HISTORY)];
+    }
+
+    // 判斷 LOOKAHEAD 格之前的那一格是不是起音
+    private void pick(long candidate) throws IOException {
+        double value = fluxAt(candidate);
+        double frequency = centroid[(int) (candidate % HISTORY)];
+        if (frequency > 0) {
+            brightness += (frequency - brightness) * brightnessAlpha;
+        }
+
+        double strength = 0;
+        if (candidate - lastOnset > MIN_ONSET_FRAMES && value > 0) {
+            double max = 0;
+            for (long i = candidate - PRE_MAX; i <= candidate + POST_MAX; i++) {
+                max = Math.max(max, fluxAt(i));
+            }
+            double mean = 0;
+            for (long i = candidate - PRE_AVG; i <= candidate + POST_AVG; i++) {
+                mean += fluxAt(i);
+            }
+            mean /= PRE_AVG + POST_AVG + 1;
+            if (value >= max && value >= mean + DELTA_GAIN * fluxMean) {
+                strength = value;
+                lastOnset = candidate;
+                onsetMean = onsetMean == 0 ? value : onsetMean + (value - onsetMean) * 0.1;
+            }
+        }
+        track(candidate, strength);
+    }
+
+    private void updateTempo(double value) {
+        novelty[(int) (frame % novelty.length)] = value;
+        for (int lag = minLag - 1; lag <= maxLag + 1 && lag <= frame; lag++) {
+            double past = novelty[(int) ((frame - lag) % novelty.length)];
+            autocorrelation[lag] = autocorrelation[lag] * tempoDecay + value * past;
+        }
+    }
+
+    // 加權自相關最大的週期 (畫格，拋物線內插)，還沒有資料時為 NaN
+    private double estimatePeriod() {
+        int best = -1;
+        double bestScore = 0;
+        for (int lag = minLag; lag <= maxLag; lag++) {
+            double score = autocorrelation[lag] * tempoWeight[lag];
+            if (score > bestScore) {
+                bestScore = score;
+                best = lag;
+            }
+        }
+        if (best < 0) {
+            return Double.NaN;
+        }
+        double left = autocorrelation[best - 1] * tempoWeight[best - 1];
+        double right = autocorrelation[best + 1] * tempoWeight[best + 1];
+        double curvature = left - 2 * bestScore + right;
+        return curvature < 0 ? best + 0.5 * (left - right) / curvature : best;
+    }
+
+    // 依預測的拍點與附近的起音決定拍點
+    private void track(long candidate, double strength) throws IOException {
+        if (Double.isNaN(nextBeat)) {
+            if (strength > 0 && candidate >= warmupFrames) {
+                period = estimatePeriod();
+                if (!Double.isNaN(period)) {
+                    beat(candidate, strength);
+                    nextBeat = candidate + period;
+                }
+            }
+            return;
+        }
+        double tolerance = BEAT_TOLERANCE * period;
+        if (strength > bestStrength && Math.abs(candidate - nextBeat) <= tolerance) {
+            bestOnset = candidate;
+            bestStrength = strength;
+        }
+        if (candidate > nextBeat + tolerance) {
+            double grid = nextBeat;
+            if (bestOnset >= 0) {
+                beat(bestOnset, bestStrength);
+                grid += PHASE_GAIN * (bestOnset - nextBeat);
+            } else {
+                beat(nextBeat, 0);
+            }
+            double estimate = estimatePeriod();
+            if (!Double.isNaN(estimate)) {
+                period = estimate;
+            }
+            nextBeat = grid + period;
+            bestOnset = -1;
+            bestStrength = 0;
+        }
+    }
+
+    private void beat(double frameIndex, double strength) throws IOException {
+        beats++;
+        // 沒有起音或太弱的拍子不放障礙物
+        double relative = strength / onsetMean;
+        if (strength <= 0 || relative < ACCENT) {
+            return;
+        }
+        // 畫格的時間是視窗的中心
+        double time = (frameIndex * hop + fftSize / 2.0) / sampleRate;
+        double triggerX = time * Obstacle.OBSTACLE_SPEED - LEAD_DISTANCE;
+        if (triggerX < ProceduralSpawnSource.START_TRIGGER) {
+            return;
+        }
+        double accent = Math.min(1, (relative - ACCENT) / (MAX_ACCENT - ACCENT));
+        if (mode == GameMode.DINO) {
+            chartDino(triggerX, accent);
+        } else {
+            chartWave(triggerX, accent);
+        }
+    }
+
+    // 地面上的方塊，兩個之間的空隙大於跳躍距離
+    private void chartDino(double triggerX, double accent) throws IOException {
+        if (triggerX < lastEnd + ProceduralSpawnSource.DINO_GAP_HARD) {
+            return;
+        }
+        int width = quantized(Obstacle.OBSTACLE_MIN_WIDTH, Obstacle.OBSTACLE_MAX_WIDTH, accent);
+        int height = quantized(Obstacle.OBSTACLE_MIN_HEIGHT, Obstacle.OBSTACLE_MAX_HEIGHT, accent);
+        row(triggerX, width, height, GameWorld.GROUND_Y - height);
+        lastEnd = triggerX + width;
+    }
+
+    // 有缺口的柱子，缺口跟著音色亮度移動，但不超過波浪在柱子之間能爬升或下降的距離
+    private void chartWave(double triggerX, double accent) throws IOException {
+        double spacing = triggerX - lastTrigger;
+        if (spacing < ProceduralSpawnSource.COLUMN_SPACING_HARD) {
+            return;
+        }
+        int step = ProceduralSpawnSource.GAP_STEP;
+        int gap = (int) ((WAVE_GAP_WIDE + (WAVE_GAP_NARROW - WAVE_GAP_WIDE) * accent) / step) * step;
+        double bright = Math.log(brightness / DARK_HZ) / Math.log(BRIGHT_HZ / DARK_HZ);
+        double target = GameWorld.GROUND_Y * (1 - Math.max(0, Math.min(1, bright)));
+
+        double reach = Math.max(0, spacing - ProceduralSpawnSource.COLUMN_WIDTH - Player.PLAYER_WIDTH
+                - ProceduralSpawnSource.MARGIN);
+        double min = Math.max(gap / 2.0, gapCenter - reach);
+        double max = Math.min(GameWorld.GROUND_Y - gap / 2.0, gapCenter + reach);
+        double center = Math.max(min, Math.min(max, target));
+        double top = Math.floor((center - gap / 2.0) / step) * step;
+        top = Math.max(0, Math.min(GameWorld.GROUND_Y - gap, top));
+        gapCenter = top + gap / 2.0;
+
+        if (top > 0) {
+            row(triggerX, ProceduralSpawnSource.COLUMN_WIDTH, top, 0);
+        }
+        double bottom = top + gap;
+        if (bottom < GameWorld.GROUND_Y) {
+            row(triggerX, ProceduralSpawnSource.COLUMN_WIDTH, GameWorld.GROUND_Y - bottom, bottom);
+        }
+        lastTrigger = triggerX;
+    }
+
+    // [min, max] 之間 SIZE_STEP 的倍數，t = 0 為最小
+    private static int quantized(int min, int max, double t) {
+        int step = ProceduralSpawnSource.SIZE_STEP;
+        return min + (int) Math.round(t * (max - min) / step) * step;
+    }
+
+    private void row(double triggerX, double width, double height, double y) throws IOException {
+        out.write(String.format(Locale.ROOT, "%.1f,%.1f,%.1f,%.1f,%s", triggerX, width, height, y,
+                ObstacleKind.REGULAR.getKeyword()));
+        out.newLine();
+        rows++;
+    }
+}
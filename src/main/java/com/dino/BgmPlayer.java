@@ -2,12 +2,35 @@ package com.dino;
 
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
 import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Plays the level music and provides the playback clock the game world
+ * follows (see getPlaybackNanos), so obstacles stay on the beat they were
+ * charted to even when frames are dropped.
+ */
 public class BgmPlayer {
     private static BgmPlayer instance; // Singleton 實例
+    // 音樂時間與估計值相差超過這麼多時直接對齊 (跳轉、卡住後恢復)
+    private static final long RESYNC_NANOS = 250_000_000L;
+    // 要連續這麼多次都相差很多才對齊，重複播放時 currentTime 歸零的瞬間不算
+    private static final int RESYNC_SAMPLES = 3;
+    // 每次讀到新的音樂時間時，修正誤差的比例
+    private static final double DRIFT_GAIN = 0.1;
+
     private MediaPlayer player;
     private String currentPath;
+    // 媒體準備好 (或載入失敗) 時歸零
+    private final CountDownLatch ready = new CountDownLatch(1);
+
+    // 播放時鐘 (只在 FX 執行緒上使用)
+    private final Clock clock = new Clock();
+    // 已經播完的次數 (重複播放)
+    private int cycles = 0;
 
     // 私有建構子，禁止外部直接 new
     private BgmPlayer(String filePath) {
@@ -18,26 +41,40 @@ public class BgmPlayer {
         Media media = new Media(resourceUrl.toString());
         player = new MediaPlayer(media);
         player.setCycleCount(MediaPlayer.INDEFINITE); // 重複播放
+        player.setOnReady(ready::countDown);
+        player.setOnError(ready::countDown);
+        player.setOnRepeat(() -> cycles++);
         this.currentPath = filePath;
     }
 
-    // 初始化 Singleton（只執行一次）
-    public static void init(String filePath) {
+    // 初始化 Singleton（只執行一次），可以在背景執行緒呼叫
+    public static synchronized void init(String filePath) {
         if (instance == null || !instance.currentPath.equals(filePath)) {
             instance = new BgmPlayer(filePath);
         }
     }
 
     // 取得 Singleton 實例
-    public static BgmPlayer getInstance() {
+    public static synchronized BgmPlayer getInstance() {
         if (instance == null) {
             throw new IllegalStateException("BgmPlayer 尚未初始化。請先呼叫 init()");
         }
         return instance;
     }
 
+    /**
+     * Waits until the media is prepared for playback. Must not be called on the
+     * FX thread, which delivers the ready event.
+     *
+     * @return false if the media is still not ready after the timeout
+     */
+    public boolean awaitReady(long timeoutMillis) throws InterruptedException {
+        return ready.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
     // 控制方法
     public void play() {
+        resetClock();
         player.play();
     }
 
@@ -47,6 +84,89 @@ public class BgmPlayer {
 
     public void stop() {
         player.stop();
+        resetClock();
+    }
+
+    /**
+     * Time since play() on the music's clock, for the frame at now (see Clock).
+     * Without playable music it is simply the frame clock.
+     *
+     * @param now The frame timestamp in nanoseconds (System.nanoTime)
+     */
+    public long getPlaybackNanos(long now) {
+        return clock.sample(now, audioMillis());
+    }
+
+    // 從 play() 開始的音樂時間 (毫秒)，沒有在播放時為 -1
+    private double audioMillis() {
+        if (player.getStatus() != MediaPlayer.Status.PLAYING) {
+            return -1;
+        }
+        Duration current = player.getCurrentTime();
+        Duration cycle = player.getCycleDuration();
+        if (current == null || current.isUnknown() || cycle == null || cycle.isUnknown() || cycle.isIndefinite()) {
+            return -1;
+        }
+        return cycles * cycle.toMillis() + current.toMillis();
+    }
+
+    private void resetClock() {
+        clock.reset();
+        cycles = 0;
+    }
+
+    /**
+     * Follows the frame clock and pulls it towards the music a little every
+     * time a new music position is reported: the position only changes every
+     * few frames, and the music may start late or stall. A large, lasting
+     * difference (seek, stall) is corrected at once. The result never
+     * decreases, so when the music falls behind the game waits for it.
+     */
+    static final class Clock {
+        // 估計值 = now - start + offset
+        private long start = -1;
+        private double offset = 0;
+        private long last = 0;
+        private double lastAudioMillis = -1;
+        private int outliers = 0;
+
+        /**
+         * @param now         The frame timestamp in nanoseconds
+         * @param audioMillis The music position since play(), or -1 if not playing
+         * @return The time since play() in nanoseconds
+         */
+        long sample(long now, double audioMillis) {
+            if (start < 0) {
+                start = now;
+            }
+            double estimate = now - start + offset;
+            if (audioMillis >= 0 && audioMillis != lastAudioMillis) {
+                // 剛更新的音樂時間最準，只在這時候比較
+                lastAudioMillis = audioMillis;
+                double error = audioMillis * 1e6 - estimate;
+                if (Math.abs(error) > RESYNC_NANOS) {
+                    if (++outliers >= RESYNC_SAMPLES) {
+                        offset += error;
+                        outliers = 0;
+                    }
+                } else {
+                    offset += error * DRIFT_GAIN;
+                    outliers = 0;
+                }
+                estimate = now - start + offset;
+            }
+            // 音樂落後時等它追上，不往回走
+            last = Math.max(last, (long) estimate);
+            return last;
+        }
+
+        void reset() {
+            start = -1;
+            offset = 0;
+            last = 0;
+            lastAudioMillis = -1;
+            outliers = 0;
+        }
     }
 
     public void setVolume(double volume) {
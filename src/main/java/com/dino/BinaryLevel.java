@@ -0,0 +1,200 @@
+package com.dino;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A compiled level (see LevelCompiler), read in place from a memory-mapped file.
+ * Opening only validates the header, so it takes the same time for any level
+ * size, and the obstacles never live on the Java heap. An unknown kind tag is
+ * reported when that obstacle is read.
+ *
+ * Layout (big endian):
+ * <pre>
+ * int    magic "DLVL"
+ * short  version
+ * short  song path length, followed by the UTF-8 bytes, padded to 4 bytes
+ * int    obstacle count
+ * float  spawn trigger x of the last obstacle (level length)
+ * float[count] spawn trigger x, sorted ascending
+ * float[count] width
+ * float[count] height
+ * float[count] y position
+ * byte[count]  obstacle kind tag (ObstacleKind.getTag)
+ * </pre>
+ */
+public class BinaryLevel implements LevelTable {
+    public static final String EXTENSION = ".dlvl";
+    static final int MAGIC = 0x444C564C; // "DLVL"
+    static final short VERSION = 1;
+    // 音樂路徑最長 0xFFFF bytes，加上前後欄位與對齊
+    static final int MAX_HEADER_BYTES = align(8 + 0xFFFF) + 8;
+
+    private final ByteBuffer buffer;
+    private final String songPath;
+    private final int count;
+    private final double lastSpawnTriggerX;
+    private final int spawnOffset;
+    private final int widthOffset;
+    private final int heightOffset;
+    private final int yOffset;
+    private final int typeOffset;
+
+    private BinaryLevel(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        Header header = readHeader(buffer);
+        if (header.dataOffset + 17L * header.count > buffer.limit()) {
+            throw new IOException("關卡檔案已損毀：障礙物數量 " + header.count);
+        }
+        this.songPath = header.songPath;
+        this.count = header.count;
+        this.lastSpawnTriggerX = header.lastSpawnTriggerX;
+        this.spawnOffset = header.dataOffset;
+        this.widthOffset = spawnOffset + 4 * count;
+        this.heightOffset = widthOffset + 4 * count;
+        this.yOffset = heightOffset + 4 * count;
+        this.typeOffset = yOffset + 4 * count;
+    }
+
+    /**
+     * Parses the header at the start of the buffer. The buffer only needs to
+     * hold the header (at most MAX_HEADER_BYTES), not the obstacles.
+     */
+    static Header readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < 16 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是編譯過的關卡檔案");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("不支援的關卡檔案版本：" + version);
+        }
+        int songLength = buffer.getShort(6) & 0xFFFF;
+        int headerEnd = align(8 + songLength);
+        if (headerEnd + 8 > buffer.limit()) {
+            throw new IOException("關卡檔案已損毀：檔頭不完整");
+        }
+        byte[] song = new byte[songLength];
+        buffer.position(8);
+        buffer.get(song);
+
+        int count = buffer.getInt(headerEnd);
+        if (count < 0) {
+            throw new IOException("關卡檔案已損毀：障礙物數量 " + count);
+        }
+        return new Header(new String(song, StandardCharsets.UTF_8), count, buffer.getFloat(headerEnd + 4),
+                headerEnd + 8);
+    }
+
+    /**
+     * Maps a compiled level file into memory.
+     */
+    public static BinaryLevel open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // 關閉 channel 後映射仍然有效
+            return new BinaryLevel(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a compiled level that is not a plain file (e.g. a classpath resource
+     * inside a jar) into a heap buffer.
+     */
+    public static BinaryLevel read(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        is.transferTo(out);
+        return new BinaryLevel(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    // 未知的類型 tag 代表檔案損毀或由較新的版本編譯，不以預設類型代替
+    static ObstacleKind checkTag(byte tag, int index) throws IOException {
+        ObstacleKind kind = ObstacleKind.fromTag(tag);
+        if (kind == null) {
+            throw new IOException(unknownTag(tag, index));
+        }
+        return kind;
+    }
+
+    private static String unknownTag(byte tag, int index) {
+        return "關卡檔案已損毀：第 " + index + " 個障礙物的類型 tag 未知 (" + tag + ")";
+    }
+
+    static int align(int offset) {
+        return (offset + 3) & ~3;
+    }
+
+    @Override
+    public String getSongPath() {
+        return songPath;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    // 由檔頭取得，不需要讀取所有障礙物
+    public double getLastSpawnTriggerX() {
+        return lastSpawnTriggerX;
+    }
+
+    @Override
+    public double spawnTriggerX(int index) {
+        return buffer.getFloat(spawnOffset + 4 * checkIndex(index));
+    }
+
+    @Override
+    public double width(int index) {
+        return buffer.getFloat(widthOffset + 4 * checkIndex(index));
+    }
+
+    @Override
+    public double height(int index) {
+        return buffer.getFloat(heightOffset + 4 * checkIndex(index));
+    }
+
+    @Override
+    public double yPosition(int index) {
+        return buffer.getFloat(yOffset + 4 * checkIndex(index));
+    }
+
+    /**
+     * @throws IllegalStateException if the file stores an unknown kind tag for the obstacle
+     */
+    @Override
+    public ObstacleKind kind(int index) {
+        byte tag = buffer.get(typeOffset + checkIndex(index));
+        ObstacleKind kind = ObstacleKind.fromTag(tag);
+        if (kind == null) {
+            throw new IllegalStateException(unknownTag(tag, index));
+        }
+        return kind;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+        return index;
+    }
+
+    static final class Header {
+        final String songPath;
+        final int count;
+        final double lastSpawnTriggerX;
+        // 第一個陣列 (spawn trigger x) 的位置
+        final int dataOffset;
+
+        Header(String songPath, int count, double lastSpawnTriggerX, int dataOffset) {
+            this.songPath = songPath;
+            this.count = count;
+            this.lastSpawnTriggerX = lastSpawnTriggerX;
+            this.dataOffset = dataOffset;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.dino;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RenderAdapter that draws the simulation onto a JavaFX Canvas.
+ * Used by GameScene for the whole world and by PreviewScene for obstacles.
+ * Sprites are drawn from the level's SpriteAtlas when there is one, and from
+ * their own images otherwise.
+ */
+public class CanvasRenderer implements RenderAdapter {
+    private static final String SCORE_LABEL = "分數: ";
+    private static final String PROGRESS_LABEL = "進度: ";
+    private static final String DINO_IMAGE = "/picture/dino.png";
+    private static final String WAVE_UP_IMAGE = "/picture/wave_up.png";
+    private static final String WAVE_DOWN_IMAGE = "/picture/wave_down.png";
+    // 殘影的不透明度
+    private static final double GHOST_ALPHA = 0.35;
+
+    private GraphicsContext gc;
+    private final Background background;
+    // 所有圖片都從同一張 atlas 取出，沒有 atlas 時為 null
+    private final SpriteAtlas atlas;
+    private final SpriteAtlas.Region dinoImage;
+    private final SpriteAtlas.Region waveUpImage;
+    private final SpriteAtlas.Region waveDownImage;
+    // 水平攝影機位移 (預覽器使用)，遊戲中為 0
+    private double cameraX = 0;
+    // HUD 字型與文字寬度只在建立時計算一次
+    private final HudText hudText = new HudText(new Font("Arial", 20));
+    private final double scoreLabelWidth = hudText.measure(SCORE_LABEL);
+    private final double progressLabelWidth = hudText.measure(PROGRESS_LABEL);
+    private final double pointWidth = hudText.measure(".");
+
+    /**
+     * @param gc         The canvas to draw on
+     * @param background The scrolling background, or null to leave the scenery to the caller
+     */
+    public CanvasRenderer(GraphicsContext gc, Background background) {
+        this(gc, background, null);
+    }
+
+    /**
+     * @param atlas The packed sprites of the level, or null to draw every image on its own
+     */
+    public CanvasRenderer(GraphicsContext gc, Background background, SpriteAtlas atlas) {
+        this.gc = gc;
+        this.background = background;
+        this.atlas = atlas;
+        this.dinoImage = sprite(DINO_IMAGE, Dino.DINO_WIDTH, Dino.DINO_HEIGHT);
+        this.waveUpImage = sprite(WAVE_UP_IMAGE, Wave.WAVE_WIDTH, Wave.WAVE_HEIGHT);
+        this.waveDownImage = sprite(WAVE_DOWN_IMAGE, Wave.WAVE_WIDTH, Wave.WAVE_HEIGHT);
+    }
+
+    /**
+     * Decodes the player images into the ImageCache ahead of time. Safe to call
+     * from a background thread.
+     */
+    public static void warmUp() {
+        ImageCache cache = ImageCache.getInstance();
+        cache.get(DINO_IMAGE, Dino.DINO_WIDTH, Dino.DINO_HEIGHT, false);
+        cache.get(WAVE_UP_IMAGE, Wave.WAVE_WIDTH, Wave.WAVE_HEIGHT, false);
+        cache.get(WAVE_DOWN_IMAGE, Wave.WAVE_WIDTH, Wave.WAVE_HEIGHT, false);
+    }
+
+    /**
+     * @return The player images, to be packed into the atlas with the obstacles
+     */
+    public static List<SpriteAtlas.Sprite> playerSprites() {
+        return Arrays.asList(new SpriteAtlas.Sprite(DINO_IMAGE, Dino.DINO_WIDTH, Dino.DINO_HEIGHT),
+                new SpriteAtlas.Sprite(WAVE_UP_IMAGE, Wave.WAVE_WIDTH, Wave.WAVE_HEIGHT),
+                new SpriteAtlas.Sprite(WAVE_DOWN_IMAGE, Wave.WAVE_WIDTH, Wave.WAVE_HEIGHT));
+    }
+
+    // 優先從 atlas 取出，不在 atlas 中時使用單獨的圖片
+    private SpriteAtlas.Region sprite(String path, double width, double height) {
+        SpriteAtlas.Region region = atlas != null ? atlas.find(path, width, height) : null;
+        if (region == null) {
+            region = SpriteAtlas.Region.of(ImageCache.getInstance().get(path, width, height, false));
+        }
+        return region;
+    }
+
+    private void draw(SpriteAtlas.Region region, double x, double y) {
+        gc.drawImage(region.getImage(), region.getX(), region.getY(), region.getWidth(), region.getHeight(), x, y,
+                region.getWidth(), region.getHeight());
+    }
+
+    public void setGraphicsContext(GraphicsContext gc) {
+        this.gc = gc;
+    }
+
+    public void setCameraX(double cameraX) {
+        this.cameraX = cameraX;
+    }
+
+    public void reset() {
+        if (background != null) {
+            background.reset();
+        }
+    }
+
+    @Override
+    public void beginFrame(double gameWorldDistance) {
+        if (background == null) {
+            return;
+        }
+        // 繪製背景 (地面已合成在背景圖中)，蓋滿整個畫布，不需要先清除
+        background.update(gameWorldDistance);
+        background.render(gc);
+    }
+
+    @Override
+    public void drawPlayer(Player player, double x, double y) {
+        if (player instanceof Dino) {
+            draw(dinoImage, x - cameraX, y);
+        } else if (player instanceof Wave) {
+            // Use waveUpImage when rising (negative yVelocity), waveDownImage when falling (positive yVelocity)
+            if (player.getYVelocity() < 0) {
+                draw(waveUpImage, x - cameraX, y);
+            } else {
+                draw(waveDownImage, x - cameraX, y);
+            }
+        }
+    }
+
+    @Override
+    public void drawGhost(GameMode mode, double x, double y, double yVelocity) {
+        gc.setGlobalAlpha(GHOST_ALPHA);
+        if (mode == GameMode.DINO) {
+            draw(dinoImage, x - cameraX, y);
+        } else {
+            draw(yVelocity < 0 ? waveUpImage : waveDownImage, x - cameraX, y);
+        }
+        gc.setGlobalAlpha(1.0);
+    }
+
+    @Override
+    public void drawObstacle(Obstacle obstacle, double x, double y) {
+        x -= cameraX;
+        if (obstacle instanceof LemonObstacle && ((LemonObstacle) obstacle).isWarning()) {
+            double width = obstacle.getWidth();
+            double height = obstacle.getHeight();
+            gc.setStroke(Color.BLUE); // 設定線條顏色
+            gc.setLineWidth(6); // 設定線條寬度
+            gc.strokeLine(x, y, x + width, y);
+            gc.strokeLine(x, y + height, x + width, y + height); // 從 (x1, y1) 畫到 (x2, y2)
+            gc.strokeLine(x + width, y, x + width, y + height);
+            gc.strokeLine(x, y, x, y + height);
+            return;
+        }
+        draw(regionOf(obstacle), x, y);
+    }
+
+    @Override
+    public void drawHud(long score, boolean showProgress, double completionPercentage) {
+        // 逐位數繪製，每個畫面都不需要組字串
+        gc.setFill(Color.BLACK);
+        gc.setFont(hudText.getFont());
+        gc.fillText(SCORE_LABEL, 10, 30);
+        hudText.drawNumber(gc, score, 10 + scoreLabelWidth, 30);
+
+        if (showProgress) {
+            // 與 %.1f 相同，四捨五入到小數點後一位
+            long tenths = Math.round(completionPercentage * 10);
+            double x = GameWorld.WIDTH - 120;
+            gc.fillText(PROGRESS_LABEL, x, 30);
+            x = hudText.drawNumber(gc, tenths / 10, x + progressLabelWidth, 30);
+            gc.fillText(".", x, 30);
+            x = hudText.drawNumber(gc, tenths % 10, x + pointWidth, 30);
+            gc.fillText("%", x, 30);
+        }
+    }
+
+    @Override
+    public void endFrame() {
+    }
+
+    // 圖片在第一次繪製時從 atlas (或 ImageCache) 取得，之後存在障礙物上
+    private SpriteAtlas.Region regionOf(Obstacle obstacle) {
+        Object handle = obstacle.getRenderHandle();
+        if (handle instanceof SpriteAtlas.Region) {
+            return (SpriteAtlas.Region) handle;
+        }
+        SpriteAtlas.Region region = sprite(obstacle.getKind().getImagePath(), obstacle.getWidth(), obstacle.getHeight());
+        obstacle.setRenderHandle(region);
+        return region;
+    }
+}
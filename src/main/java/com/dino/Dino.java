@@ -1,20 +1,11 @@
 package com.dino;
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
-import javafx.scene.paint.Color;
-
 public class Dino extends Player {
     public static final int DINO_WIDTH = PLAYER_WIDTH;
     public static final int DINO_HEIGHT = PLAYER_HEIGHT;
-    private static final int JUMP_STRENGTH = -18;
-    private static final double GRAVITY = 1.5;
-
-    private Image dinoImage;
-
-    public Dino() {
-        this.dinoImage = new Image(getClass().getResourceAsStream("/picture/dino.png"), DINO_WIDTH, DINO_HEIGHT, false, false);
-    }
+    // 速度單位為像素/秒，重力為像素/秒² (60 Hz 時等於原本每畫面 -18 與 1.5)
+    private static final double JUMP_STRENGTH = -1080;
+    private static final double GRAVITY = 5400;
 
     public void jump() {
         if (!isJumping) {
@@ -29,12 +20,13 @@ public class Dino extends Player {
     }
 
     @Override
-    public void update() {
-        y += yVelocity;
-        yVelocity += GRAVITY;
+    public void update(double dt) {
+        prevY = y;
+        y += yVelocity * dt;
+        yVelocity += GRAVITY * dt;
 
-        if (y >= MainApplication.getHEIGHT() - 50 - DINO_HEIGHT) {
-            y = MainApplication.getHEIGHT() - 50 - DINO_HEIGHT;
+        if (y >= GameWorld.GROUND_Y - DINO_HEIGHT) {
+            y = GameWorld.GROUND_Y - DINO_HEIGHT;
             if (isUpKeyPressed) {
                 rejump();
             } else {
@@ -46,9 +38,4 @@ public class Dino extends Player {
             yVelocity = 0;
         }
     }
-
-    @Override
-    public void render(GraphicsContext gc) {
-        gc.drawImage(dinoImage, x, y);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.dino;
+
+/**
+ * Fixed timestep locked to an external clock (the music position).
+ * Each frame converts the clock time into a whole number of simulation
+ * ticks, so the game runs at the same speed regardless of the display
+ * refresh rate and never drifts from the clock: ticks that do not fit in
+ * one frame run on the following frames instead of being dropped.
+ */
+public class FixedTimestep {
+    private final int tickRate;
+    private final long tickNanos;
+    private final double tickSeconds;
+    private final int maxCatchUpSteps;
+
+    private double alpha = 0;
+    private long tickCount = 0;
+
+    /**
+     * @param tickRate        Simulation ticks per second
+     * @param maxCatchUpSteps Maximum ticks run for a single frame; the rest
+     *                        run on the next frames
+     */
+    public FixedTimestep(int tickRate, int maxCatchUpSteps) {
+        if (tickRate <= 0) {
+            throw new IllegalArgumentException("tickRate must be positive: " + tickRate);
+        }
+        if (maxCatchUpSteps <= 0) {
+            throw new IllegalArgumentException("maxCatchUpSteps must be positive: " + maxCatchUpSteps);
+        }
+        this.tickRate = tickRate;
+        this.tickNanos = 1_000_000_000L / tickRate;
+        this.tickSeconds = 1.0 / tickRate;
+        this.maxCatchUpSteps = maxCatchUpSteps;
+    }
+
+    /**
+     * Returns how many ticks to simulate so that the simulation catches up
+     * with a clock that started at tick 0, e.g. the music position. Ticks
+     * beyond maxCatchUpSteps run on the next frames, so the simulation stays
+     * locked to the clock. No ticks run while the clock is behind.
+     *
+     * @param elapsedNanos The clock time since tick 0
+     * @return The number of ticks to run, at most maxCatchUpSteps
+     */
+    public int advanceTo(long elapsedNanos) {
+        long behind = elapsedNanos / tickNanos - tickCount;
+        int steps = (int) Math.max(0, Math.min(behind, maxCatchUpSteps));
+        tickCount += steps;
+        // 還沒追上時顯示最新的 tick
+        double fraction = (double) (elapsedNanos - tickCount * tickNanos) / tickNanos;
+        alpha = Math.max(0, Math.min(1, fraction));
+        return steps;
+    }
+
+    /**
+     * Starts over at tick 0, e.g. after a restart, when the clock restarts too.
+     */
+    public void reset() {
+        alpha = 0;
+        tickCount = 0;
+    }
+
+    /**
+     * @return How far between the previous and the current tick the frame is,
+     *         in [0, 1] (1 while still catching up)
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public double getTickSeconds() {
+        return tickSeconds;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+}
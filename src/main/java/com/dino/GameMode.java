@@ -0,0 +1,17 @@
+package com.dino;
+
+public enum GameMode {
+    DINO,
+    WAVE;
+
+    // 依關卡檔案決定遊戲模式 (關卡 2 為波浪模式，無盡模式寫在名稱中)
+    public static GameMode forLevel(String levelFilePath) {
+        if (ProceduralSpawnSource.isEndless(levelFilePath)) {
+            return levelFilePath.startsWith(ProceduralSpawnSource.PREFIX + "wave") ? WAVE : DINO;
+        }
+        if (levelFilePath.endsWith("level2.txt") || levelFilePath.endsWith("level2" + BinaryLevel.EXTENSION)) {
+            return WAVE;
+        }
+        return DINO;
+    }
+}
@@ -3,6 +3,8 @@ package com.dino;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 
+import java.util.List;
+
 /**
  * 當 GameScene 判斷為遊戲結束時，會載入這個 FXML.
  */
@@ -12,6 +14,8 @@ public class GameOverController {
     private Label scoreLabel;
     @FXML
     private Label completionLabel;
+    @FXML
+    private Label highScoresLabel;
 
     // 必須由外部呼叫去設定分數與完成度
     public void setScore(long score) {
@@ -21,4 +25,9 @@ public class GameOverController {
     public void setCompletionText(String text) {
         completionLabel.setText(text);
     }
-}
\ No newline at end of file
+
+    // 這個關卡的排行榜，rank 為這次的名次 (0 表示沒有進榜)
+    public void setHighScores(List<ScoreStore.Entry> entries, int rank) {
+        highScoresLabel.setText(ScoreStore.format(entries, rank));
+    }
+}
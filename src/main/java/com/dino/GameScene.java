@@ -2,64 +2,105 @@ package com.dino;
 
 import javafx.animation.AnimationTimer;
 import javafx.animation.FadeTransition;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.Pane;
-import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
 import javafx.util.Duration;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
-
-enum GameMode {
-    DINO,
-    WAVE
-}
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class GameScene extends Pane {
 
-    private static final int GROUND_Y = MainApplication.getHEIGHT() - 50;
+    // 模擬頻率 (每秒 tick 數)，可用 -Ddino.tickRate 調整
+    private static final int TICK_RATE = Integer.getInteger("dino.tickRate", 60);
+    // 單一畫面最多補跑的 tick 數，剩下的在之後的畫面補上 (一個 tick 只要幾微秒)
+    private static final int MAX_CATCH_UP_STEPS = 30;
+    // 每個畫面最多等待串流關卡讀取的時間 (所有補跑的 tick 共用)
+    private static final long SPAWN_WAIT_BUDGET_NANOS = 8_000_000;
+    private static final DateTimeFormatter REPLAY_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
-    private Player player;
-    private GameMode gameMode = GameMode.DINO; // Default game mode
-    private List<Obstacle> obstacles = new ArrayList<>();
-    private long score = 0;
+    // 遊戲狀態與規則 (不依賴 JavaFX)
+    private final GameWorld world = new GameWorld(GameMode.DINO);
     private boolean gameOver = false;
     private boolean dying = false;
     private long deathAnimationStartTime = 0;
     private static final long DEATH_ANIMATION_DURATION = 500_000_000; // 0.5 seconds in nanoseconds
     private Image explosionImage;
     private ImageView explosionView;
-    private boolean levelComplete = false;
-
-    private List<LevelObstacleData> levelSequence = new ArrayList<>();
-    private int currentSequenceIndex = 0;
-    private double gameWorldDistance = 0;
-    private double finalLevelDistance = 0;
-    private boolean levelModeActive = true;
-    private boolean allLevelObstaclesSpawned = false;
-    private String currentLevelFile = "/level1.txt"; // Default level file
 
     private GraphicsContext gc;
+    // 把 GameWorld 繪製到 Canvas 上
+    private CanvasRenderer renderer;
     // 控制遊戲迴圈的執行續
     private AnimationTimer gameTimer;
+    // 將畫面時間換算成固定長度的模擬 tick
+    private final FixedTimestep timestep;
+    // 重播檔案存放的目錄，可用 -Ddino.replayDir 調整
+    private static final String REPLAY_DIR = System.getProperty("dino.replayDir", "replays");
+    // 每個關卡保留的最近重播數 (另外保留分數最高的一次)，可用 -Ddino.replayKeep 調整
+    private static final int REPLAY_KEEP = Integer.getInteger("dino.replayKeep", 20);
+    // 重播與殘影的檔案寫入在這個執行緒上依序進行，不卡住畫面
+    private static final ExecutorService RUN_WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "run-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final String levelFile;
+    // 記錄本次的輸入 (以 tick 為單位)，結束時存成重播檔
+    private final Replay.Recorder recorder = new Replay.Recorder();
+    // 重播模式時播放的紀錄，一般遊戲時為 null
+    private final Replay replay;
+    private Replay.Playback playback;
+    // 本次的軌跡與最佳紀錄的殘影 (已在記憶體中)
+    private GhostTrail.Writer ghostWriter;
+    private GhostTrail.Reader ghostReader;
+    // 這次成為新的最佳紀錄時，在寫入執行緒上讀進來，下次重新開始時換上
+    private volatile GhostTrail.Reader nextGhost;
+    // 這次在排行榜上的名次 (沒有進榜為 0)
+    private int scoreRank = 0;
+    // 各階段耗時統計，F3 切換顯示
+    private final PerfMetrics metrics = PerfMetrics.getInstance();
+    private final PerfOverlay perfOverlay = new PerfOverlay(metrics);
+    private long lastFrameTime = -1;
+    // 熱重載：關卡檔案修改時套用到進行中的遊戲
+    private final Consumer<LevelData> levelReloader = this::applyLevelEdit;
+    // 這一輪中途改過關卡，重播與殘影都對不上，不儲存
+    private boolean levelEdited = false;
     // 與主執行程式連結
     private MainApplication app;
-    // 背景圖片
-    private Background background;
 
-    public GameScene(MainApplication app, String levelFile) {
+    /**
+     * @param level The level with all its assets already loaded (see LevelLoadTask)
+     */
+    public GameScene(MainApplication app, PreparedLevel level) {
+        this(app, level, null);
+    }
+
+    /**
+     * @param level  The level with all its assets already loaded (see LevelLoadTask)
+     * @param replay The recorded run to play back instead of reading the keyboard, or null
+     */
+    public GameScene(MainApplication app, PreparedLevel level, Replay replay) {
         this.app = app;
+        this.levelFile = level.getLevelFile();
+        this.replay = replay;
+        // 重播時使用錄製時的 tick 頻率，才能得到相同的結果
+        this.timestep = new FixedTimestep(replay != null ? replay.getTickRate() : TICK_RATE, MAX_CATCH_UP_STEPS);
+        if (replay != null) {
+            playback = replay.new Playback();
+        }
         setPrefSize(MainApplication.getWIDTH(), MainApplication.getHEIGHT());
 
         Canvas canvas = new Canvas(MainApplication.getWIDTH(), MainApplication.getHEIGHT());
@@ -67,24 +108,28 @@ public class GameScene extends Pane {
         getChildren().add(canvas);
         // 2. 讓 GameScene 這個 Pane 可以拿到鍵盤 focus，並在按鍵時呼叫 handleInput
         setFocusTraversable(true);
-        setOnKeyPressed(evt -> handleInput(evt.getCode()));
+        // 處理完就 consume，場景上的備用處理器 (GameScene 沒有焦點時才會收到) 不會再處理一次
+        setOnKeyPressed(evt -> {
+            handleInput(evt.getCode());
+            evt.consume();
+        });
         setOnKeyReleased(evt -> handleKeyReleased(evt.getCode()));
         // 注意：到畫面真正顯示前（Stage.show()）這個 requestFocus 有時候還無效，
         // 但可以先呼叫一次。真正顯示後 GameScene 才能拿到焦點。
         requestFocus();
 
-        // 載入爆炸圖片
-        explosionImage = new Image(getClass().getResourceAsStream("/picture/explosion.png"));
-
-        // Initialize player based on game mode
-        createPlayer();
-        loadLevel(levelFile);
-
-        // 初始化背景 - 根據關卡選擇不同背景
-        if (levelFile.equals("/level2.txt")) {
-            background = new Background("/picture/bg2.jpg", MainApplication.getWIDTH(), MainApplication.getHEIGHT());
-        } else {
-            background = new Background("/picture/bg.jpg", MainApplication.getWIDTH(), MainApplication.getHEIGHT());
+        // 圖片、關卡與音樂都已由 LevelLoadTask 在背景載入
+        explosionImage = level.getExplosionImage();
+        world.setGameMode(level.getGameMode());
+        world.loadLevel(level.getSource());
+        world.setMetrics(metrics);
+        renderer = new CanvasRenderer(gc, level.getBackground(), level.getAtlas());
+        ghostReader = matchingTickRate(level.getGhost());
+        openGhost();
+        LevelWatcher watcher = LevelWatcher.getInstance();
+        // 無盡模式沒有關卡檔案可以監看
+        if (watcher != null && replay == null && !world.isEndless()) {
+            watcher.watch(levelFile, levelReloader);
         }
     }
 
@@ -92,11 +137,17 @@ public class GameScene extends Pane {
         gameTimer = new AnimationTimer() {
             @Override
             public void handle(long now) {
+                long frameStart = System.nanoTime();
+                if (lastFrameTime >= 0) {
+                    metrics.record(PerfMetrics.Phase.FRAME_INTERVAL, now - lastFrameTime);
+                }
+                lastFrameTime = now;
                 // 不管要不要顯示「遊戲結束/通關畫面」，都先繪製一次遊戲畫面或結算畫面
-                if (!gameOver && !levelComplete) {
+                if (!gameOver && !world.isLevelComplete()) {
                     if (dying) {
                         // 處理死亡動畫
-                        renderGame();
+                        renderGame(1.0);
+                        perfOverlay.render(gc, now, world.getObstacles().size());
                         renderDeathAnimation(now);
 
                         // 檢查死亡動畫是否完成
@@ -104,8 +155,32 @@ public class GameScene extends Pane {
                             gameOver = true;
                         }
                     } else {
-                        updateGame(now);
-                        renderGame();
+                        // 依音樂播放的時間執行固定步長的模擬，與螢幕更新率無關，
+                        // 掉幀或 GC 停頓後補跑落後的 tick，障礙物不會和音樂錯開
+                        int steps = timestep.advanceTo(BgmPlayer.getInstance().getPlaybackNanos(now));
+                        world.setSpawnDeadline(frameStart + SPAWN_WAIT_BUDGET_NANOS);
+                        for (int i = 0; i < steps && !world.isDying() && !world.isLevelComplete(); i++) {
+                            if (playback != null) {
+                                playback.apply(world);
+                            }
+                            world.tick(timestep.getTickSeconds());
+                            sampleGhost();
+                        }
+                        if (world.isDying() || world.isLevelComplete()) {
+                            saveReplay();
+                            saveGhost();
+                            saveScore();
+                        }
+                        if (world.isDying()) {
+                            dying = true;
+                            deathAnimationStartTime = now;
+                            // 清除爆炸視圖，以便在renderDeathAnimation中重新創建
+                            explosionView = null;
+                        } else if (world.isLevelComplete()) {
+                            System.out.println("關卡完成！");
+                        }
+                        renderGame(timestep.getAlpha());
+                        perfOverlay.render(gc, now, world.getObstacles().size());
                     }
                 } else if (gameOver) {
                     renderGameOver();
@@ -114,8 +189,11 @@ public class GameScene extends Pane {
                     renderLevelComplete();
                     stopGameLoop();
                 }
+                metrics.record(PerfMetrics.Phase.FRAME_WORK, System.nanoTime() - frameStart);
             }
         };
+        timestep.reset();
+        lastFrameTime = -1;
         BgmPlayer.getInstance().play();
         gameTimer.start();
     }
@@ -127,31 +205,37 @@ public class GameScene extends Pane {
         BgmPlayer.getInstance().stop();
     }
 
-    // Create player based on game mode
-    private void createPlayer() {
-        if (gameMode == GameMode.DINO) {
-            player = new Dino();
-        } else if (gameMode == GameMode.WAVE) {
-            player = new Wave();
+    // 離開遊戲時釋放關卡 (串流關卡會停止讀取執行緒)
+    private void exitToMenu() {
+        LevelWatcher watcher = LevelWatcher.getInstance();
+        if (watcher != null) {
+            watcher.unwatch(levelReloader);
         }
+        stopGameLoop();
+        closeGhost();
+        world.loadLevel(LevelData.empty());
+        app.showStartMenu();
     }
 
     public Player getPlayer() {
-        return player;
+        return world.getPlayer();
     }
 
     // For backward compatibility
     public Dino getDino() {
-        if (player instanceof Dino) {
-            return (Dino) player;
+        if (world.getPlayer() instanceof Dino) {
+            return (Dino) world.getPlayer();
         }
         return null;
     }
 
     // Set game mode and create appropriate player
     public void setGameMode(GameMode mode) {
-        this.gameMode = mode;
-        createPlayer();
+        world.setGameMode(mode);
+    }
+
+    public GameWorld getWorld() {
+        return world;
     }
 
     public boolean isGameOver() {
@@ -159,217 +243,180 @@ public class GameScene extends Pane {
     }
 
     public boolean isLevelComplete() {
-        return levelComplete;
+        return world.isLevelComplete();
     }
 
     // 偵測鍵盤輸入
     public void handleInput(KeyCode code) {
-        if (!gameOver && !levelComplete) {
+        if (!gameOver && !world.isLevelComplete()) {
             if (code == KeyCode.SPACE || code == KeyCode.UP) {
-                player.setUpKeyPressed(true);
-                if (gameMode == GameMode.DINO && player instanceof Dino) {
-                    ((Dino) player).jump();
-                    // } else if (gameMode == GameMode.WAVE && player instanceof Wave) {
-                    // ((Wave) player).setUpKeyPressed(true);
-                }
-                // } else if (code == KeyCode.DOWN) {
-                // if (gameMode == GameMode.WAVE && player instanceof Wave) {
-                // ((Wave) player).setUpKeyPressed(false);
-                // }
+                applyUpKey(true);
             }
         }
 
-        if (code == KeyCode.R && (gameOver || levelComplete)) {
+        if (code == KeyCode.R && (gameOver || world.isLevelComplete())) {
             resetGame();
         }
         if (code == KeyCode.M) {
-            stopGameLoop();
-            app.showStartMenu();
+            exitToMenu();
+        }
+        if (code == KeyCode.F3) {
+            perfOverlay.toggle();
         }
     }
 
     // Key release handler for Wave mode
     public void handleKeyReleased(KeyCode code) {
-        // if (gameMode == GameMode.WAVE && player instanceof Wave) {
         if (code == KeyCode.SPACE || code == KeyCode.UP) {
-            player.setUpKeyPressed(false);
+            applyUpKey(false);
         }
-        // }
     }
 
-    private void loadLevel(String levelFilePath) {
-        levelSequence.clear();
-        currentSequenceIndex = 0;
-        gameWorldDistance = 0;
-        levelModeActive = true;
-        allLevelObstaclesSpawned = false;
-        levelComplete = false;
-        finalLevelDistance = 0;
-
-        // Store the current level file
-        currentLevelFile = levelFilePath;
-
-        // Set game mode based on level file
-        if (levelFilePath.equals("/level1.txt")) {
-            setGameMode(GameMode.DINO);
-        } else if (levelFilePath.equals("/level2.txt")) {
-            setGameMode(GameMode.WAVE);
+    // 輸入在兩個 tick 之間生效，記錄時標上已完成的 tick 數
+    // 只有按鍵狀態改變時才記錄與套用 (忽略系統的按鍵重複)，和 LevelSolver 的輸入模型相同
+    private void applyUpKey(boolean pressed) {
+        if (replay != null) {
+            return; // 重播時忽略鍵盤
         }
+        if (pressed == world.getPlayer().isUpKeyPressed()) {
+            return;
+        }
+        recorder.record(world.getTickCount(), pressed);
+        world.setUpKeyPressed(pressed);
+    }
 
-        try (InputStream is = getClass().getResourceAsStream(levelFilePath);
-                BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
-
-            String line, songpath;
-            // 載入音樂
-            songpath = reader.readLine();
-            BgmPlayer.init(songpath);
-            // 載入障礙物
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().startsWith("#") || line.trim().isEmpty()) {
-                    continue;
-                }
+    // 關卡檔案被修改：不重新開始，直接換成新的障礙物
+    private void applyLevelEdit(LevelData level) {
+        if (world.patchLevel(level)) {
+            levelEdited = true;
+        } else {
+            System.err.println("串流讀取的關卡無法熱重載，請重新開始關卡");
+        }
+    }
 
-                String[] parts = line.split(",");
-                if (parts.length == 5) {
-                    try {
-                        double spawnTriggerX = Double.parseDouble(parts[0].trim());
-                        double width = Double.parseDouble(parts[1].trim());
-                        double height = Double.parseDouble(parts[2].trim());
-                        double yPosition = Double.parseDouble(parts[3].trim());
-                        String type = parts[4].trim().toLowerCase();
-
-                        if (!type.equals("regular") && !type.equals("platform") && !type.equals("lemon")) {
-                            System.err.println("關卡檔案中未知障礙物類型 '" + type + "'，行：" + line + "。預設為 'regular'。");
-                            type = "regular";
-                        }
-                        levelSequence.add(new LevelObstacleData(spawnTriggerX, width, height, yPosition, type));
-                    } catch (NumberFormatException e) {
-                        System.err.println("關卡檔案中數字格式無效，行：" + line + " - " + e.getMessage());
-                    }
-                } else {
-                    System.err
-                            .println("關卡檔案中格式無效，行：" + line + "。預期格式為 'spawn_trigger_x,width,height,y_position,type'。");
-                }
-            }
-            if (!levelSequence.isEmpty()) {
-                finalLevelDistance = levelSequence.get(levelSequence.size() - 1).spawnTriggerX
-                        + MainApplication.getWIDTH();
-            } else {
-                finalLevelDistance = 0;
-                levelModeActive = false;
-                allLevelObstaclesSpawned = true;
-                System.out.println("未載入關卡資料。切換到隨機障礙物生成。");
-            }
+    // 關卡檔名 (不含副檔名)，用於重播與殘影檔名
+    private String levelName() {
+        return Paths.get(levelFile).getFileName().toString().replaceFirst("\\.[^.]*$", "");
+    }
 
-        } catch (Exception e) {
-            System.err.println("載入關卡檔案失敗：" + levelFilePath + " - " + e.getMessage());
-            levelModeActive = false;
-            allLevelObstaclesSpawned = true;
-            System.out.println("由於關卡載入錯誤，回退到隨機障礙物生成。");
-        }
+    private Path ghostPath() {
+        return GhostTrail.pathFor(levelFile);
     }
 
-    private void updateGame(long now) {
-        if (!dying) {
-            player.update();
-            gameWorldDistance += Obstacle.OBSTACLE_SPEED;
-            background.update(gameWorldDistance);
-        }
+    // tick 頻率不同時樣本對不上，不顯示殘影
+    private GhostTrail.Reader matchingTickRate(GhostTrail.Reader ghost) {
+        return ghost != null && ghost.getTickRate() == timestep.getTickRate() ? ghost : null;
+    }
 
-        if (levelModeActive) {
-            while (currentSequenceIndex < levelSequence.size()) {
-                LevelObstacleData data = levelSequence.get(currentSequenceIndex);
-                if (gameWorldDistance >= data.spawnTriggerX) {
-                    Obstacle newObstacle;
-                    if (data.type.equals("platform")) {
-                        newObstacle = new PlatformObstacle(data.width, data.height, data.yPosition);
-                    } else if (data.type.equals("regular")) {
-                        newObstacle = new RegularObstacle(data.width, data.height, data.yPosition);
-                    } else {
-                        newObstacle = new LemonObstacle(data.width, data.height, data.yPosition);
-                    }
-                    obstacles.add(newObstacle);
-                    currentSequenceIndex++;
-                    // 判斷是否還有障礙物未生成
-                    if (currentSequenceIndex >= levelSequence.size()) {
-                        allLevelObstaclesSpawned = true;
-                        levelModeActive = false;
-                        System.out.println("所有關卡障礙物已排程。等待它們通過。");
-                        break; // 沒有更多障礙物，跳出迴圈
-                    }
-                    // 下一個障礙物也是同一個生成位置
-                    if (levelSequence.get(currentSequenceIndex).spawnTriggerX == data.spawnTriggerX) {
-                        // 等待迴圈再次執行，物件就會被加入世界中
-                        continue;
-                    } else {
-                        // 下個障礙物生成位置不同，跳出迴圈
-                        break;
-                    }
-                } else {
-                    break;
-                }
-            }
-        } else if (!allLevelObstaclesSpawned) {
-            System.exit(-1);
+    // 顯示最佳紀錄的殘影，並開始記錄這次的軌跡
+    private void openGhost() {
+        GhostTrail.Reader loaded = nextGhost;
+        if (loaded != null) {
+            nextGhost = null;
+            ghostReader = matchingTickRate(loaded);
         }
-
-        if (!dying) {
-            obstacles.removeIf(obstacle -> {
-                obstacle.update();
-                return obstacle.isOffScreen();
-            });
+        world.setGhost(ghostReader);
+        if (replay == null) {
+            ghostWriter = new GhostTrail.Writer(ghostPath(), timestep.getTickRate(), RUN_WRITER);
         }
+    }
 
-        if (allLevelObstaclesSpawned && obstacles.isEmpty()) {
-            levelComplete = true;
-            System.out.println("關卡完成！");
+    private void sampleGhost() {
+        if (ghostWriter == null) {
+            return;
         }
-
-        for (Obstacle obstacle : obstacles) {
-            if (obstacle.getColide(player)) {
-                if (!dying) {
-                    dying = true;
-                    deathAnimationStartTime = now;
-                    // 清除爆炸視圖，以便在renderDeathAnimation中重新創建
-                    explosionView = null;
-                }
-                break;
-            }
+        try {
+            ghostWriter.sample(world.getPlayer());
+        } catch (IOException e) {
+            System.err.println("寫入殘影失敗：" + e.getMessage());
+            closeGhost();
         }
+    }
 
-        if (!gameOver && !levelComplete) {
-            score++;
+    // 這次跑完了：在寫入執行緒上完成軌跡，若比最佳紀錄好就取代它，並讀進來給下一次使用
+    private void saveGhost() {
+        if (levelEdited) {
+            closeGhost();
+            return;
+        }
+        world.setGhost(null);
+        if (ghostWriter == null) {
+            return;
         }
+        Path path = ghostPath();
+        ghostWriter.finish(world.isLevelComplete()).whenCompleteAsync((better, error) -> {
+            if (error != null) {
+                System.err.println("儲存殘影失敗：" + path + " - " + error.getMessage());
+                return;
+            }
+            if (!better) {
+                return;
+            }
+            System.out.println("新的最佳紀錄殘影：" + path);
+            try {
+                nextGhost = GhostTrail.Reader.load(path);
+            } catch (IOException e) {
+                System.err.println("讀取殘影失敗：" + path + " - " + e.getMessage());
+            }
+        }, RUN_WRITER);
+        ghostWriter = null;
     }
 
-    private void renderGame() {
-        // 繪製背景
-        background.render(gc);
-
-        // 繪製地面
-        gc.setFill(Color.DARKGRAY);
-        gc.fillRect(0, GROUND_Y, MainApplication.getWIDTH(), MainApplication.getHEIGHT() - GROUND_Y);
-
-        // 只有在非死亡狀態才繪製玩家
-        if (!dying) {
-            player.render(gc);
+    // 放棄這次的軌跡 (最佳紀錄的殘影留在記憶體中，重新開始時再使用)
+    private void closeGhost() {
+        world.setGhost(null);
+        if (ghostWriter != null) {
+            ghostWriter.close();
         }
+        ghostWriter = null;
+    }
 
-        for (Obstacle obstacle : obstacles) {
-            obstacle.render(gc);
+    private void saveReplay() {
+        if (replay != null || levelEdited) {
+            return;
         }
+        Replay run = recorder.finish(levelFile, timestep.getTickRate(), world.getTickCount(), world.getScore());
+        String level = levelName();
+        Path file = Paths.get(REPLAY_DIR, Replay.fileName(level, LocalDateTime.now().format(REPLAY_TIME_FORMAT)));
+        RUN_WRITER.execute(() -> {
+            try {
+                Files.createDirectories(file.getParent());
+                run.write(file);
+                System.out.println("已儲存重播：" + file);
+                Replay.prune(file.getParent(), level, REPLAY_KEEP);
+            } catch (IOException e) {
+                System.err.println("儲存重播失敗：" + file + " - " + e.getMessage());
+            }
+        });
+    }
 
-        gc.setFill(Color.BLACK);
-        gc.setFont(new Font("Arial", 20));
-        gc.fillText("分數: " + score, 10, 30);
+    /**
+     * Waits (briefly) for the replays and ghost trails that are still being written, when exiting.
+     */
+    public static void shutdownWriter() {
+        RUN_WRITER.shutdown();
+        try {
+            RUN_WRITER.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        if (levelModeActive || allLevelObstaclesSpawned) {
-            double completionPercentage = (gameWorldDistance / finalLevelDistance) * 100;
-            if (completionPercentage > 100)
-                completionPercentage = 100;
-            String completionText = String.format("進度: %.1f%%", completionPercentage);
-            gc.fillText(completionText, MainApplication.getWIDTH() - 120, 30);
+    // 記錄到排行榜 (在背景寫入磁碟)
+    private void saveScore() {
+        scoreRank = 0;
+        if (replay != null || levelEdited) {
+            return;
         }
+        scoreRank = ScoreStore.getInstance().record(levelName(), world.getScore(), world.isLevelComplete());
+        if (scoreRank > 0) {
+            System.out.println("排行榜第 " + scoreRank + " 名");
+        }
+    }
+
+    // alpha：目前畫面位於上一個與目前 tick 之間的比例
+    private void renderGame(double alpha) {
+        world.render(renderer, alpha);
     }
 
     private void renderDeathAnimation(long now) {
@@ -378,7 +425,8 @@ public class GameScene extends Pane {
             explosionView = new ImageView(explosionImage);
             explosionView.setFitWidth(Player.PLAYER_WIDTH * 1.5);
             explosionView.setFitHeight(Player.PLAYER_HEIGHT * 1.5);
-            explosionView.setX(player.getX() - (explosionView.getFitWidth() - Player.PLAYER_WIDTH) / 2);
+            Player player = world.getPlayer();
+            explosionView.setX(Player.START_X - (explosionView.getFitWidth() - Player.PLAYER_WIDTH) / 2);
             explosionView.setY(player.getY() - (explosionView.getFitHeight() - Player.PLAYER_HEIGHT) / 2);
 
             // 添加爆炸圖片到場景
@@ -393,31 +441,32 @@ public class GameScene extends Pane {
     }
 
     private void renderGameOver() {
+        long start = System.nanoTime();
         // 1. 停止背景音樂
         BgmPlayer.getInstance().stop();
 
-        // 2. 載入 GameOver.fxml
+        // 2. 取得預先載入的 GameOver 畫面，只更新分數與完成度
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/GameOver.fxml"));
-            Parent gameOverRoot = loader.load();
-
-            // 3. 取得 Controller，把分數與完成度傳進去
-            GameOverController controller = loader.getController();
-            controller.setScore(score);
+            SceneManager scenes = SceneManager.getInstance();
+            GameOverController controller = scenes.getController(SceneManager.Screen.GAME_OVER);
+            controller.setScore(world.getScore());
+            controller.setHighScores(ScoreStore.getInstance().top(levelName()), scoreRank);
 
             String completionText;
-            double completionPercentage = (gameWorldDistance / finalLevelDistance) * 100;
-            if (completionPercentage > 100)
-                completionPercentage = 100;
-            completionText = String.format("關卡完成度: %.1f%%", completionPercentage);
+            if (world.isEndless()) {
+                completionText = String.format("距離: %.0f", world.getGameWorldDistance());
+            } else {
+                completionText = String.format("關卡完成度: %.1f%%", world.getCompletionPercentage());
+            }
             controller.setCompletionText(completionText);
 
-            // 4. 把原本畫布清空，改把 FXML root 加進來
+            // 3. 把原本畫布清空，改把 FXML root 加進來
             this.getChildren().clear();
-            this.getChildren().add(gameOverRoot);
+            this.getChildren().add(scenes.getRoot(SceneManager.Screen.GAME_OVER));
 
             // ★ 請特別注意：FXML 加進來後，要再把 focus 要回給 GameScene ★
             this.requestFocus();
+            scenes.recordSwap(start);
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -426,24 +475,24 @@ public class GameScene extends Pane {
     }
 
     private void renderLevelComplete() {
+        long start = System.nanoTime();
         // 1. 停止背景音樂
         BgmPlayer.getInstance().stop();
 
-        // 2. 載入 LevelComplete.fxml
+        // 2. 取得預先載入的 LevelComplete 畫面，只更新分數
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/LevelComplete.fxml"));
-            Parent levelCompleteRoot = loader.load();
+            SceneManager scenes = SceneManager.getInstance();
+            LevelCompleteController controller = scenes.getController(SceneManager.Screen.LEVEL_COMPLETE);
+            controller.setScore(world.getScore());
+            controller.setHighScores(ScoreStore.getInstance().top(levelName()), scoreRank);
 
-            // 3. 取得 Controller，把分數與完成度傳進去
-            LevelCompleteController controller = loader.getController();
-            controller.setScore(score);
-
-            // 4. 清掉原本的畫布，改以 FXML 版面
+            // 3. 清掉原本的畫布，改以 FXML 版面
             this.getChildren().clear();
-            this.getChildren().add(levelCompleteRoot);
+            this.getChildren().add(scenes.getRoot(SceneManager.Screen.LEVEL_COMPLETE));
 
             // ★ 請特別注意：FXML 加進來後，要再把 focus 要回給 GameScene ★
             this.requestFocus();
+            scenes.recordSwap(start);
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -452,22 +501,26 @@ public class GameScene extends Pane {
     }
 
     private void resetGame() {
-        createPlayer();
-        obstacles.clear();
-        score = 0;
         gameOver = false;
         dying = false;
         explosionView = null;
-        levelComplete = false;
-        allLevelObstaclesSpawned = false;
-        gameWorldDistance = 0;
-        finalLevelDistance = 0;
-        background.reset();
-        loadLevel(currentLevelFile);
+        renderer.reset();
+        // 關卡已在記憶體 (或串流) 中，從頭開始即可，不需重新讀取
+        closeGhost();
+        openGhost();
+        world.reset();
+        levelEdited = false;
+        recorder.clear();
+        if (replay != null) {
+            playback = replay.new Playback();
+        }
         this.getChildren().clear();
         Canvas canvas = new Canvas(MainApplication.getWIDTH(), MainApplication.getHEIGHT());
         gc = canvas.getGraphicsContext2D();
+        renderer.setGraphicsContext(gc);
         getChildren().add(canvas);
+        timestep.reset();
+        lastFrameTime = -1;
         BgmPlayer.getInstance().play();
         gameTimer.start();
     }
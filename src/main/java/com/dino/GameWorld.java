@@ -0,0 +1,418 @@
+package com.dino;
+
+/**
+ * Complete game state and rules, independent of JavaFX.
+ * One call to tick advances the world by one fixed simulation step, so a level
+ * can be simulated headlessly (verification, replays, bots) as well as played.
+ */
+public class GameWorld {
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 600;
+    public static final int GROUND_Y = HEIGHT - 50;
+
+    private Player player;
+    private GameMode gameMode = GameMode.DINO; // Default game mode
+    // 以世界座標索引的障礙物
+    private final ObstaclePool pool = new ObstaclePool();
+    private final ObstacleField obstacles = new ObstacleField(pool);
+    // 每前進 10 像素得 1 分 (60 Hz 時等於每個 tick 1 分)，分數只與經過的距離有關，不受 tick 頻率影響
+    private static final double DISTANCE_PER_POINT = Obstacle.OBSTACLE_SPEED / 60;
+    private long score = 0;
+    private long tickCount = 0;
+    private boolean dying = false;
+    private boolean levelComplete = false;
+
+    private SpawnSource levelSequence = new TableSpawnSource(LevelData.empty());
+    private double gameWorldDistance = 0;
+    private double prevGameWorldDistance = 0;
+    private double finalLevelDistance = 0;
+    private boolean levelModeActive = false;
+    private boolean allLevelObstaclesSpawned = true;
+    // 之前最佳紀錄的殘影，沒有時為 null
+    private GhostTrail.Reader ghost;
+    private boolean ghostVisible = false;
+    // 各階段的耗時統計，null 時不計時 (無畫面模擬、搜尋)
+    private PerfMetrics metrics;
+
+    public GameWorld(GameMode gameMode) {
+        setGameMode(gameMode);
+    }
+
+    // 複製建構子，見 copy
+    private GameWorld(GameWorld other) {
+        player = other.player.copy();
+        gameMode = other.gameMode;
+        obstacles.copyFrom(other.obstacles);
+        score = other.score;
+        tickCount = other.tickCount;
+        dying = other.dying;
+        levelComplete = other.levelComplete;
+        levelSequence = other.levelSequence.fork();
+        gameWorldDistance = other.gameWorldDistance;
+        prevGameWorldDistance = other.prevGameWorldDistance;
+        finalLevelDistance = other.finalLevelDistance;
+        levelModeActive = other.levelModeActive;
+        allLevelObstaclesSpawned = other.allLevelObstaclesSpawned;
+    }
+
+    /**
+     * Returns an independent copy of the world that continues exactly like this
+     * one given the same inputs (the ghost is not copied). Used to search over
+     * inputs. A copy of a streamed level reads the file on its own thread and
+     * should be closed when no longer needed.
+     */
+    public GameWorld copy() {
+        return new GameWorld(this);
+    }
+
+    // 釋放關卡 (串流關卡會停止讀取執行緒)
+    public void close() {
+        levelSequence.close();
+    }
+
+    // Create player based on game mode
+    private void createPlayer() {
+        if (gameMode == GameMode.DINO) {
+            player = new Dino();
+        } else if (gameMode == GameMode.WAVE) {
+            player = new Wave();
+        }
+    }
+
+    // Set game mode and create appropriate player
+    public void setGameMode(GameMode mode) {
+        this.gameMode = mode;
+        createPlayer();
+    }
+
+    /**
+     * Starts the given level from the beginning.
+     *
+     * @param sequence The level obstacles, ordered by spawn trigger; empty if no level is loaded
+     */
+    public void loadLevel(LevelTable sequence) {
+        loadLevel(new TableSpawnSource(sequence));
+    }
+
+    /**
+     * Starts the given level from the beginning. The previous source is closed.
+     *
+     * @param sequence The level obstacles in spawn order
+     */
+    public void loadLevel(SpawnSource sequence) {
+        if (levelSequence != sequence) {
+            levelSequence.close();
+        }
+        levelSequence = sequence;
+        reset();
+    }
+
+    /**
+     * Swaps in an edited version of the current level without restarting it
+     * (hot reload). Obstacles not spawned yet come from the new level. If the
+     * edit touches obstacles that have already spawned, the obstacles on
+     * screen are rebuilt from the new level; camera-bound ones (lemons) that
+     * are already on screen are dropped.
+     *
+     * @return false if the current level is streamed and cannot be patched
+     */
+    public boolean patchLevel(LevelTable next) {
+        if (!(levelSequence instanceof TableSpawnSource)) {
+            return false;
+        }
+        TableSpawnSource current = (TableSpawnSource) levelSequence;
+        int spawned = current.getIndex();
+        TableSpawnSource patched = new TableSpawnSource(next);
+        if (firstDifference(current.getTable(), next) < spawned) {
+            // 已生成的部分有改動：依新的關卡重建畫面上的障礙物
+            obstacles.clear();
+            spawned = respawn(next);
+        }
+        patched.seek(Math.min(spawned, next.size()));
+        levelSequence = patched;
+        finalLevelDistance = next.size() > 0 ? patched.getLastSpawnTriggerX() + WIDTH : 0;
+        levelModeActive = !patched.isExhausted();
+        allLevelObstaclesSpawned = !levelModeActive;
+        return true;
+    }
+
+    // 第一個不同的障礙物索引，完全相同時為較短的長度
+    private static int firstDifference(LevelTable a, LevelTable b) {
+        int n = Math.min(a.size(), b.size());
+        for (int i = 0; i < n; i++) {
+            if (a.spawnTriggerX(i) != b.spawnTriggerX(i) || a.width(i) != b.width(i) || a.height(i) != b.height(i)
+                    || a.yPosition(i) != b.yPosition(i) || a.kind(i) != b.kind(i)) {
+                return i;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Spawns the obstacles of the level that would be on screen now.
+     *
+     * @return The number of obstacles the spawn loop has passed
+     */
+    private int respawn(LevelTable level) {
+        int i = 0;
+        for (; i < level.size() && level.spawnTriggerX(i) <= gameWorldDistance; i++) {
+            Obstacle obstacle = pool.acquire(level.kind(i), level.width(i), level.height(i), level.yPosition(i));
+            if (obstacle.movesWithCamera()) {
+                pool.release(obstacle);
+                continue;
+            }
+            // 與 tick 相同：放在自己的生成位置
+            obstacle.placeInWorld(level.spawnTriggerX(i));
+            if (obstacle.isOffScreen(gameWorldDistance)) {
+                pool.release(obstacle);
+            } else {
+                obstacles.add(obstacle);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Races the player against the given trail from the next reset on.
+     *
+     * @param ghost The trail to show, or null for none; the caller keeps ownership
+     */
+    public void setGhost(GhostTrail.Reader ghost) {
+        this.ghost = ghost;
+        ghostVisible = false;
+        if (ghost != null) {
+            ghost.rewind();
+        }
+    }
+
+    /**
+     * Records the duration of each tick and render phase into the given metrics
+     * (not carried over by copy).
+     *
+     * @param metrics The metrics to record into, or null to stop timing
+     */
+    public void setMetrics(PerfMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Limits how long the ticks that follow may wait for a streamed level that
+     * is still loading (see SpawnSource.setWaitDeadline).
+     *
+     * @param deadlineNanos The System.nanoTime after which spawning is deferred instead
+     */
+    public void setSpawnDeadline(long deadlineNanos) {
+        levelSequence.setWaitDeadline(deadlineNanos);
+    }
+
+    // 重新開始目前的關卡
+    public void reset() {
+        if (ghost != null) {
+            ghost.rewind();
+        }
+        ghostVisible = false;
+        createPlayer();
+        obstacles.clear();
+        score = 0;
+        tickCount = 0;
+        dying = false;
+        levelComplete = false;
+        levelSequence.rewind();
+        gameWorldDistance = 0;
+        prevGameWorldDistance = 0;
+        if (levelSequence.size() > 0) {
+            // 關卡長度來自檔頭或索引，不需要讀完所有障礙物 (無盡模式為無限大)
+            finalLevelDistance = levelSequence.getLastSpawnTriggerX() + WIDTH;
+            levelModeActive = true;
+            allLevelObstaclesSpawned = false;
+        } else {
+            finalLevelDistance = 0;
+            levelModeActive = false;
+            allLevelObstaclesSpawned = true;
+        }
+    }
+
+    /**
+     * Applies the state of the jump / up key. Inputs take effect immediately and
+     * are picked up by the next tick.
+     */
+    public void setUpKeyPressed(boolean pressed) {
+        if (dying || levelComplete) {
+            return;
+        }
+        player.setUpKeyPressed(pressed);
+        if (pressed && gameMode == GameMode.DINO && player instanceof Dino) {
+            ((Dino) player).jump();
+        }
+    }
+
+    /**
+     * Advances the world by one simulation tick. Does nothing once the player
+     * is dying or the level is complete.
+     *
+     * @param dt The tick length in seconds
+     */
+    public void tick(double dt) {
+        if (dying || levelComplete) {
+            return;
+        }
+        long tickStart = now();
+        tickCount++;
+        player.update(dt);
+        prevGameWorldDistance = gameWorldDistance;
+        gameWorldDistance += Obstacle.OBSTACLE_SPEED * dt;
+        // 攝影機的左邊界就是 gameWorldDistance，玩家固定在畫面上的 START_X
+        player.setX(gameWorldDistance + Player.START_X);
+
+        long phaseStart = now();
+        if (levelModeActive) {
+            levelSequence.setGameWorldDistance(gameWorldDistance);
+            // 串流讀取還沒跟上時 isReady 會稍等讀取執行緒；超過這個畫面的期限 (磁碟卡住) 才回傳 false，之後的 tick 再生成
+            // 這個 tick 經過的所有生成位置都要生成，tick 頻率低時一個 tick 可能跨過好幾個
+            while (levelSequence.isReady()) {
+                double spawnTriggerX = levelSequence.spawnTriggerX();
+                if (spawnTriggerX > gameWorldDistance) {
+                    break;
+                }
+                // 從物件池取得，穩定狀態下不需要配置新物件
+                Obstacle newObstacle = pool.acquire(levelSequence.kind(), levelSequence.width(),
+                        levelSequence.height(), levelSequence.yPosition());
+                // 關卡障礙物放在自己的生成位置，與 tick 頻率無關；跟著攝影機的障礙物 (檸檬) 從攝影機的位置開始
+                newObstacle.placeInWorld(newObstacle.movesWithCamera() ? prevGameWorldDistance : spawnTriggerX);
+                obstacles.add(newObstacle);
+                levelSequence.advance();
+            }
+            // 判斷是否還有障礙物未生成
+            if (levelSequence.isExhausted()) {
+                allLevelObstaclesSpawned = true;
+                levelModeActive = false;
+            }
+        }
+        phaseStart = lap(PerfMetrics.Phase.SPAWN, phaseStart);
+
+        obstacles.update(dt, gameWorldDistance);
+        phaseStart = lap(PerfMetrics.Phase.OBSTACLE_UPDATE, phaseStart);
+
+        if (allLevelObstaclesSpawned && obstacles.isEmpty()) {
+            levelComplete = true;
+        }
+
+        if (obstacles.collide(player)) {
+            dying = true;
+        }
+        lap(PerfMetrics.Phase.COLLISION, phaseStart);
+
+        if (!levelComplete) {
+            // 加上一點容許誤差，避免累加距離的捨入誤差少算 1 分
+            score = (long) Math.floor(gameWorldDistance / DISTANCE_PER_POINT + 1e-6);
+        }
+
+        if (ghost != null) {
+            // 殘影在開始前已讀進記憶體，tick 中不做檔案 I/O
+            ghostVisible = ghost.advanceTo(tickCount);
+        }
+        lap(PerfMetrics.Phase.TICK, tickStart);
+    }
+
+    /**
+     * Draws the world through the given adapter.
+     *
+     * @param adapter The drawing surface
+     * @param alpha   How far the frame is between the previous and the current tick
+     */
+    public void render(RenderAdapter adapter, double alpha) {
+        double cameraX = prevGameWorldDistance + (gameWorldDistance - prevGameWorldDistance) * alpha;
+        long phaseStart = now();
+        adapter.beginFrame(cameraX);
+        phaseStart = lap(PerfMetrics.Phase.BACKGROUND_RENDER, phaseStart);
+
+        // 殘影畫在玩家後面
+        if (ghostVisible) {
+            adapter.drawGhost(gameMode, ghost.getRenderX(alpha) - cameraX, ghost.getRenderY(alpha),
+                    ghost.getYVelocity());
+        }
+
+        // 只有在非死亡狀態才繪製玩家
+        if (!dying) {
+            adapter.drawPlayer(player, Player.START_X, player.getRenderY(alpha));
+        }
+
+        obstacles.render(adapter, cameraX, alpha);
+        phaseStart = lap(PerfMetrics.Phase.OBSTACLE_RENDER, phaseStart);
+
+        adapter.drawHud(score, hasLevelProgress(), getCompletionPercentage());
+        adapter.endFrame();
+        lap(PerfMetrics.Phase.HUD_RENDER, phaseStart);
+    }
+
+    // 沒有統計時不呼叫 nanoTime
+    private long now() {
+        return metrics != null ? System.nanoTime() : 0;
+    }
+
+    // 記錄從 since 到現在的耗時，並回傳現在的時間作為下一個階段的起點
+    private long lap(PerfMetrics.Phase phase, long since) {
+        if (metrics == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        metrics.record(phase, now - since);
+        return now;
+    }
+
+    // 是否有載入關卡 (有關卡才顯示進度，無盡模式沒有進度)
+    public boolean hasLevelProgress() {
+        return !isEndless() && (levelModeActive || allLevelObstaclesSpawned);
+    }
+
+    public boolean isEndless() {
+        return levelSequence.isEndless();
+    }
+
+    public double getCompletionPercentage() {
+        double completionPercentage = (gameWorldDistance / finalLevelDistance) * 100;
+        if (completionPercentage > 100)
+            completionPercentage = 100;
+        return completionPercentage;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
+    public ObstaclePool getPool() {
+        return pool;
+    }
+
+    public ObstacleField getObstacles() {
+        return obstacles;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public boolean isDying() {
+        return dying;
+    }
+
+    public boolean isLevelComplete() {
+        return levelComplete;
+    }
+
+    public double getGameWorldDistance() {
+        return gameWorldDistance;
+    }
+
+    public double getFinalLevelDistance() {
+        return finalLevelDistance;
+    }
+}
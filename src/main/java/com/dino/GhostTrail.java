@@ -0,0 +1,335 @@
+package com.dino;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-tick player positions of a run, used to race against a ghost of the best
+ * run of a level. The best trail is read into memory before the run starts (12
+ * bytes per tick), so playing it back never touches the disk. The current run
+ * is written through two fixed buffers that are handed to a writer thread, so
+ * nothing is allocated per tick and the game thread does no file I/O.
+ *
+ * File layout (big endian):
+ * <pre>
+ * int    magic "DGST"
+ * short  version
+ * short  tick rate
+ * byte   1 if the run completed the level
+ * byte[3] padding
+ * long   sample count
+ * float[3] per tick: x, y, y velocity
+ * </pre>
+ */
+public class GhostTrail {
+    public static final String EXTENSION = ".ghost";
+    private static final int MAGIC = 0x44475354; // "DGST"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final int SAMPLE_BYTES = 12;
+    // 每次寫入的樣本數 (約 90 秒)
+    private static final int BUFFER_SAMPLES = 5461;
+    // 殘影檔案存放的目錄，可用 -Ddino.ghostDir 調整
+    private static final String GHOST_DIR = System.getProperty("dino.ghostDir", "ghosts");
+
+    private GhostTrail() {
+    }
+
+    /**
+     * @return The file of the best trail of the level
+     */
+    public static Path pathFor(String levelFile) {
+        String levelName = Paths.get(levelFile).getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        return Paths.get(GHOST_DIR, levelName + EXTENSION);
+    }
+
+    /**
+     * @return true if a run with the given result beats the trail stored in the file
+     */
+    public static boolean isBetter(Path best, boolean complete, long samples) throws IOException {
+        if (!Files.isRegularFile(best)) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(best, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel);
+            boolean bestComplete = header.get(8) != 0;
+            long bestSamples = header.getLong(12);
+            // 過關優先；都過關或都沒過關時，撐越久越好
+            if (complete != bestComplete) {
+                return complete;
+            }
+            return samples > bestSamples;
+        } catch (IOException e) {
+            return true; // 損毀的檔案直接取代
+        }
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("殘影檔案提早結束");
+            }
+        }
+        header.flip();
+        if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION) {
+            throw new IOException("不是殘影檔案");
+        }
+        return header;
+    }
+
+    /**
+     * Records the trail of the current run into a temporary file, and keeps it
+     * as the best trail when the run ends if it beats the stored one. All file
+     * operations run on the given executor, which must run tasks one at a time
+     * in order; sample only fills a buffer.
+     */
+    public static class Writer {
+        private final Path best;
+        private final Path temp;
+        private final int tickRate;
+        private final Executor executor;
+        // 遊戲執行緒填入 buffer，滿了就和 spare 交換，交給寫入執行緒寫出
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SAMPLES * SAMPLE_BYTES);
+        private ByteBuffer spare = ByteBuffer.allocateDirect(BUFFER_SAMPLES * SAMPLE_BYTES);
+        private volatile boolean spareFree = true;
+        private long samples = 0;
+        // 寫入執行緒上發生的錯誤，下次 sample 時丟出
+        private volatile IOException failure;
+        // 只在寫入執行緒上使用，第一次寫入時才建立檔案
+        private FileChannel channel;
+
+        /**
+         * @param best     The best trail of the level, replaced by finish when beaten
+         * @param executor The writer thread
+         */
+        public Writer(Path best, int tickRate, Executor executor) {
+            this.best = best;
+            this.tickRate = tickRate;
+            this.executor = executor;
+            this.temp = best.resolveSibling(best.getFileName() + ".tmp");
+        }
+
+        /**
+         * Call once after every tick.
+         *
+         * @throws IOException if an earlier write failed
+         */
+        public void sample(Player player) throws IOException {
+            if (!buffer.hasRemaining()) {
+                handOff();
+            }
+            buffer.putFloat((float) player.getX());
+            buffer.putFloat((float) player.getY());
+            buffer.putFloat((float) player.getYVelocity());
+            samples++;
+        }
+
+        /**
+         * Completes the file on the writer thread and makes it the best trail if
+         * it beats the stored one.
+         *
+         * @return Completes with true if the run became the new best trail
+         */
+        public CompletableFuture<Boolean> finish(boolean complete) {
+            ByteBuffer last = buffer;
+            long count = samples;
+            last.flip();
+            CompletableFuture<Boolean> result = new CompletableFuture<>();
+            executor.execute(() -> {
+                try {
+                    result.complete(complete(last, complete, count));
+                } catch (IOException e) {
+                    discard();
+                    result.completeExceptionally(e);
+                }
+            });
+            return result;
+        }
+
+        // 放棄這次的紀錄
+        public void close() {
+            executor.execute(this::discard);
+        }
+
+        // 把寫滿的 buffer 交給寫入執行緒，改寫入另一個
+        private void handOff() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+            // 上一次的寫入還沒完成 (磁碟非常慢) 時才需要等待，兩次交換之間約有 90 秒
+            while (!spareFree) {
+                LockSupport.parkNanos(100_000);
+            }
+            ByteBuffer full = buffer;
+            buffer = spare;
+            spare = full;
+            spareFree = false;
+            full.flip();
+            executor.execute(() -> {
+                try {
+                    write(full);
+                } catch (IOException e) {
+                    failure = e;
+                } finally {
+                    full.clear();
+                    spareFree = true;
+                }
+            });
+        }
+
+        // 以下只在寫入執行緒上執行
+        private void write(ByteBuffer data) throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+            if (channel == null) {
+                Files.createDirectories(best.toAbsolutePath().getParent());
+                channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                // 檔頭先留空，結束時再寫入
+                channel.position(HEADER_BYTES);
+            }
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+
+        private boolean complete(ByteBuffer last, boolean complete, long count) throws IOException {
+            write(last);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.putShort((short) tickRate);
+            header.put((byte) (complete ? 1 : 0));
+            header.position(12);
+            header.putLong(count);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.close();
+
+            if (count > 0 && isBetter(best, complete, count)) {
+                Files.move(temp, best, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return true;
+            }
+            Files.deleteIfExists(temp);
+            return false;
+        }
+
+        private void discard() {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                System.err.println("刪除殘影暫存檔失敗：" + temp + " - " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A stored trail, read into memory and played back tick by tick.
+     */
+    public static class Reader {
+        private final int tickRate;
+        private final int samples;
+        private final ByteBuffer data;
+        private float prevX, prevY;
+        private float x, y, yVelocity;
+
+        private Reader(int tickRate, int samples, ByteBuffer data) {
+            this.tickRate = tickRate;
+            this.samples = samples;
+            this.data = data;
+        }
+
+        /**
+         * Reads the stored trail, or returns null if there is none. Call it off
+         * the FX thread (e.g. while the level loads).
+         */
+        public static Reader load(Path file) throws IOException {
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer header = readHeader(channel);
+                long samples = header.getLong(12);
+                // 檔案比檔頭記錄的短 (寫到一半) 時只使用完整的樣本
+                long stored = (channel.size() - HEADER_BYTES) / SAMPLE_BYTES;
+                samples = Math.min(samples, stored);
+                if (samples < 0 || samples > Integer.MAX_VALUE / SAMPLE_BYTES) {
+                    throw new IOException("殘影檔案已損毀：樣本數 " + samples);
+                }
+                ByteBuffer data = ByteBuffer.allocate((int) samples * SAMPLE_BYTES);
+                while (data.hasRemaining()) {
+                    if (channel.read(data, HEADER_BYTES + data.position()) < 0) {
+                        throw new IOException("殘影檔案提早結束");
+                    }
+                }
+                return new Reader(header.getShort(6), (int) samples, data);
+            }
+        }
+
+        public int getTickRate() {
+            return tickRate;
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        // 從頭開始播放
+        public void rewind() {
+            x = y = yVelocity = 0;
+            prevX = prevY = 0;
+        }
+
+        /**
+         * Moves to the sample taken after the given tick.
+         *
+         * @return false if the trail has no sample for that tick
+         */
+        public boolean advanceTo(long targetTick) {
+            if (targetTick < 1 || targetTick > samples) {
+                return false;
+            }
+            int at = (int) (targetTick - 1) * SAMPLE_BYTES;
+            x = data.getFloat(at);
+            y = data.getFloat(at + 4);
+            yVelocity = data.getFloat(at + 8);
+            if (targetTick > 1) {
+                prevX = data.getFloat(at - SAMPLE_BYTES);
+                prevY = data.getFloat(at - SAMPLE_BYTES + 4);
+            } else {
+                // 第一個樣本之前沒有位置可內插
+                prevX = x;
+                prevY = y;
+            }
+            return true;
+        }
+
+        public double getRenderX(double alpha) {
+            return prevX + (x - prevX) * alpha;
+        }
+
+        public double getRenderY(double alpha) {
+            return prevY + (y - prevY) * alpha;
+        }
+
+        public double getYVelocity() {
+            return yVelocity;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.dino;
+
+import java.io.IOException;
+
+/**
+ * Runs a level on GameWorld without starting JavaFX.
+ * The player never presses anything; useful as a smoke test of a level file
+ * and to measure raw simulation throughput.
+ *
+ * Usage: HeadlessRunner <level> [tickRate] [runs]
+ */
+public class HeadlessRunner {
+    // 避免沒有終點的關卡跑不停 (60 Hz 約一小時)
+    private static final long MAX_TICKS = 216_000;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("用法: HeadlessRunner <關卡檔案> [tickRate] [執行次數]");
+            System.exit(2);
+        }
+        String levelFile = args[0];
+        int tickRate = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        SpawnSource level = LevelLoader.openSource(levelFile);
+        GameWorld world = new GameWorld(GameMode.forLevel(levelFile));
+        world.loadLevel(level);
+        double dt = 1.0 / tickRate;
+
+        long totalTicks = 0;
+        long start = System.nanoTime();
+        for (int run = 0; run < runs; run++) {
+            world.reset();
+            while (!world.isDying() && !world.isLevelComplete() && world.getTickCount() < MAX_TICKS) {
+                world.tick(dt);
+            }
+            totalTicks += world.getTickCount();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        String outcome = world.isLevelComplete() ? "完成" : world.isDying() ? "死亡" : "逾時";
+        System.out.printf("關卡: %s, 模式: %s, 障礙物: %s%n", levelFile, world.getGameMode(),
+                level.isEndless() ? "無盡" : String.valueOf(level.size()));
+        System.out.printf("結果: %s, tick: %d, 分數: %d, 完成度: %.1f%%%n", outcome, world.getTickCount(),
+                world.getScore(), world.getCompletionPercentage());
+        System.out.printf("%d 次共 %d tick，耗時 %.2f ms (%.0f tick/ms)%n", runs, totalTicks, elapsed / 1e6,
+                totalTicks / Math.max(elapsed / 1e6, 1e-3));
+    }
+}
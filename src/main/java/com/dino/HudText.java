@@ -0,0 +1,59 @@
+package com.dino;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+/**
+ * Draws HUD labels and numbers without building strings every frame.
+ * Numbers are drawn digit by digit from cached one-character strings; the
+ * digits of the HUD fonts have equal advance widths, measured once.
+ */
+public class HudText {
+    private static final String[] DIGITS = { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" };
+
+    private final Font font;
+    private final double digitAdvance;
+
+    public HudText(Font font) {
+        this.font = font;
+        this.digitAdvance = width("00") - width("0");
+    }
+
+    public Font getFont() {
+        return font;
+    }
+
+    /**
+     * Measures the advance of a constant label, including trailing spaces.
+     * Only meant to be called outside the game loop.
+     */
+    public double measure(String label) {
+        // Text 的邊界不含結尾空白，所以多量一個數字再扣掉
+        return width(label + "0") - width("0");
+    }
+
+    /**
+     * Draws a non-negative number starting at x.
+     *
+     * @return The x just after the last digit
+     */
+    public double drawNumber(GraphicsContext gc, long value, double x, double y) {
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            gc.fillText(DIGITS[(int) (value / divisor % 10)], x, y);
+            x += digitAdvance;
+            divisor /= 10;
+        }
+        return x;
+    }
+
+    private double width(String s) {
+        Text text = new Text(s);
+        text.setFont(font);
+        return text.getLayoutBounds().getWidth();
+    }
+}
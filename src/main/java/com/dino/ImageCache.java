@@ -0,0 +1,196 @@
+package com.dino;
+
+import javafx.scene.image.Image;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Shared cache of decoded and scaled images.
+ * Images are keyed by (path, width, height, smooth) and evicted in LRU order
+ * once the estimated decoded size exceeds the memory budget.
+ */
+public class ImageCache {
+    // 預設記憶體上限：64 MB 的解碼後像素 (每像素 4 bytes)
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static ImageCache instance; // Singleton 實例
+
+    private final long maxBytes;
+    // accessOrder = true，迭代順序即為 LRU 順序
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public ImageCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    // 取得 Singleton 實例
+    public static synchronized ImageCache getInstance() {
+        if (instance == null) {
+            instance = new ImageCache(DEFAULT_MAX_BYTES);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the image at its original size.
+     *
+     * @param path The classpath resource of the image
+     */
+    public Image get(String path) {
+        return get(path, 0, 0, false);
+    }
+
+    /**
+     * Returns the image decoded at the requested size, loading it on a miss.
+     *
+     * @param path   The classpath resource of the image
+     * @param width  The requested width, or 0 for the original width
+     * @param height The requested height, or 0 for the original height
+     * @param smooth Whether to use a better quality filter when scaling
+     */
+    public synchronized Image get(String path, double width, double height, boolean smooth) {
+        Key key = new Key(path, width, height, smooth);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+            return entry.image;
+        }
+        misses++;
+        Image image = decode(path, width, height, smooth);
+        long bytes = (long) Math.ceil(image.getWidth()) * (long) Math.ceil(image.getHeight()) * 4;
+        entries.put(key, new Entry(image, bytes));
+        currentBytes += bytes;
+        evictIfNeeded(key);
+        return image;
+    }
+
+    /**
+     * Decodes every image variant the given level will spawn, so that no decode
+     * happens inside the game loop.
+     *
+     * @param variants The obstacle sizes of the level about to be played
+     */
+    public void warmUp(Collection<ObstacleVariant> variants) {
+        for (ObstacleVariant variant : variants) {
+            get(variant.getKind().getImagePath(), variant.getWidth(), variant.getHeight(), false);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ImageCache[entries=" + entries.size() + ", bytes=" + currentBytes + "/" + maxBytes
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+
+    private Image decode(String path, double width, double height, boolean smooth) {
+        InputStream is = getClass().getResourceAsStream(path);
+        if (is == null) {
+            throw new IllegalArgumentException("Cannot find resource: " + path);
+        }
+        // backgroundLoading = false：在呼叫端的執行緒上同步解碼
+        Image image = new Image(is, width, height, false, smooth);
+        if (image.isError()) {
+            throw new IllegalArgumentException("Cannot decode image: " + path, image.getException());
+        }
+        return image;
+    }
+
+    // 超過上限時從最久未使用的開始淘汰，但保留剛放入的那一張
+    private void evictIfNeeded(Key justAdded) {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            if (eldest.getKey().equals(justAdded)) {
+                continue;
+            }
+            currentBytes -= eldest.getValue().bytes;
+            evictions++;
+            it.remove();
+        }
+    }
+
+    private static final class Entry {
+        final Image image;
+        final long bytes;
+
+        Entry(Image image, long bytes) {
+            this.image = image;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Key {
+        final String path;
+        final double width;
+        final double height;
+        final boolean smooth;
+
+        Key(String path, double width, double height, boolean smooth) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+            this.smooth = smooth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Double.compare(width, other.width) == 0
+                    && Double.compare(height, other.height) == 0
+                    && smooth == other.smooth
+                    && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, width, height, smooth);
+        }
+    }
+}
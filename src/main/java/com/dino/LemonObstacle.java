@@ -1,13 +1,20 @@
 package com.dino;
 
-import javafx.scene.canvas.GraphicsContext;
 // import java.util.Random;
-import javafx.scene.paint.Color;
 
 public class LemonObstacle extends Obstacle {
 
-    // 新增定時器
-    private int timer;
+    // 警示框顯示的秒數 (原本為 150 個畫面)
+    private static final double WARNING_SECONDS = 2.5;
+    // 攻擊結束後停留的秒數 (約 10 個畫面)
+    private static final double LINGER_SECONDS = 10.5 / 60;
+    // 浮點數累減的容許誤差
+    private static final double EPSILON = 1e-9;
+
+    // 新增定時器 (秒)
+    private double timer;
+    // 本次 tick 是否剛好結束警示
+    private boolean expired = false;
     // public RegularObstacle() {
     // super();
     // Random localRandom = new Random();
@@ -20,39 +27,53 @@ public class LemonObstacle extends Obstacle {
     // }
 
     public LemonObstacle(double width, double height, double yPosition) {
-        super(width, height, yPosition, "/picture/lemon.png");
-        this.timer = 150;
+        super(width, height, yPosition);
+        this.timer = WARNING_SECONDS;
         this.x = 0;
+        this.prevX = 0;
     }
 
     @Override
-    public void update() {
-        timer--;
+    public void reset(double width, double height, double yPosition) {
+        super.reset(width, height, yPosition);
+        this.timer = WARNING_SECONDS;
+        this.expired = false;
+        this.x = 0;
+        this.prevX = 0;
+    }
+
+    public static String imagePath() {
+        return "/picture/lemon.png";
     }
 
     @Override
-    public void render(GraphicsContext gc) {
-        if (this.timer <= 0) {
-            gc.drawImage(image, x, y);
-        } else {
-            gc.setStroke(Color.BLUE); // 設定線條顏色
-            gc.setLineWidth(6); // 設定線條寬度
-            gc.strokeLine(x, y, x + width, y);
-            gc.strokeLine(x, y + height, x + width, y + height); // 從 (x1, y1) 畫到 (x2, y2)
-            gc.strokeLine(x + width, y, x + width, y + height);
-            gc.strokeLine(x, y, x, y + height);
+    public ObstacleKind getKind() {
+        return ObstacleKind.LEMON;
+    }
 
-        }
+    @Override
+    public void update(double dt) {
+        // 固定在畫面左側，跟著攝影機前進
+        prevX = x;
+        x += OBSTACLE_SPEED * dt;
+        boolean warning = timer > EPSILON;
+        timer -= dt;
+        expired = warning && timer <= EPSILON;
+    }
+
+    // 警示中 (尚未攻擊) 時繪製藍色外框，結束後繪製圖片
+    public boolean isWarning() {
+        return this.timer > EPSILON;
     }
 
     @Override
-    public void render(GraphicsContext gc, double cameraY) {
-        gc.drawImage(image, x, y - cameraY);
+    public boolean movesWithCamera() {
+        return true;
     }
 
     @Override
-    public boolean isOffScreen() {
-        if (timer < -10) {
+    public boolean isOffScreen(double cameraX) {
+        if (timer < -LINGER_SECONDS) {
             return true;
         }
         return false;
@@ -66,7 +87,7 @@ public class LemonObstacle extends Obstacle {
      */
     public boolean getColide(Player player) {
         // 若高亮結束，判定玩家是否仍在區域內
-        if (timer == 0) {
+        if (expired) {
             int playerWidth = Player.PLAYER_WIDTH;
             int playerHeight = Player.PLAYER_HEIGHT;
             double px = player.getX();
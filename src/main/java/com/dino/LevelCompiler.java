@@ -0,0 +1,96 @@
+package com.dino;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Compiles a text level into the binary format read by BinaryLevel.
+ * Obstacles are sorted by spawn trigger (keeping the file order for equal
+ * triggers) and stored as arrays of floats plus a type tag.
+ *
+ * Usage: LevelCompiler <level.txt> [output.dlvl]
+ */
+public class LevelCompiler {
+
+    private LevelCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("用法: LevelCompiler <關卡文字檔> [輸出檔.dlvl]");
+            System.exit(2);
+        }
+        String input = args[0];
+        String output;
+        if (args.length > 1) {
+            output = args[1];
+        } else {
+            String name = Paths.get(input).getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            output = (dot > 0 ? name.substring(0, dot) : name) + BinaryLevel.EXTENSION;
+        }
+
+        LevelData level = LevelLoader.loadText(input);
+        Path outputPath = Paths.get(output);
+        compile(level, outputPath);
+        System.out.println("已編譯 " + level.size() + " 個障礙物：" + input + " -> " + outputPath.toAbsolutePath());
+    }
+
+    /**
+     * Writes the level in the binary format.
+     */
+    public static void compile(LevelTable level, Path output) throws IOException {
+        int count = level.size();
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        // 穩定排序：同一個生成位置的障礙物保持檔案中的順序
+        Arrays.sort(order, Comparator.comparingDouble(level::spawnTriggerX));
+
+        byte[] song = level.getSongPath() == null ? new byte[0]
+                : level.getSongPath().getBytes(StandardCharsets.UTF_8);
+        if (song.length > 0xFFFF) {
+            throw new IOException("音樂路徑太長");
+        }
+        int headerEnd = BinaryLevel.align(8 + song.length);
+        ByteBuffer buffer = ByteBuffer.allocate(headerEnd + 8 + 17 * count);
+        buffer.putInt(BinaryLevel.MAGIC);
+        buffer.putShort(BinaryLevel.VERSION);
+        buffer.putShort((short) song.length);
+        buffer.put(song);
+        buffer.position(headerEnd);
+        buffer.putInt(count);
+        buffer.putFloat(count == 0 ? 0 : (float) level.spawnTriggerX(order[count - 1]));
+        for (int i : order) {
+            buffer.putFloat((float) level.spawnTriggerX(i));
+        }
+        for (int i : order) {
+            buffer.putFloat((float) level.width(i));
+        }
+        for (int i : order) {
+            buffer.putFloat((float) level.height(i));
+        }
+        for (int i : order) {
+            buffer.putFloat((float) level.yPosition(i));
+        }
+        for (int i : order) {
+            buffer.put(level.kind(i).getTag());
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
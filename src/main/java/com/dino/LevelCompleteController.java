@@ -3,14 +3,23 @@ package com.dino;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 
+import java.util.List;
+
 public class LevelCompleteController {
 
     @FXML
     private Label scoreLabel;
     @FXML
     private Label completionLabel;
+    @FXML
+    private Label highScoresLabel;
 
     public void setScore(long score) {
         scoreLabel.setText("最終分數: " + score);
     }
-}
\ No newline at end of file
+
+    // 這個關卡的排行榜，rank 為這次的名次 (0 表示沒有進榜)
+    public void setHighScores(List<ScoreStore.Entry> entries, int rank) {
+        highScoresLabel.setText(ScoreStore.format(entries, rank));
+    }
+}
@@ -0,0 +1,72 @@
+package com.dino;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A parsed level: the background music and the obstacles ordered as in the file.
+ */
+public class LevelData implements LevelTable {
+    private final String songPath;
+    private final List<LevelObstacleData> obstacles;
+    private final List<LevelDiagnostic> diagnostics;
+
+    public LevelData(String songPath, List<LevelObstacleData> obstacles) {
+        this(songPath, obstacles, Collections.emptyList());
+    }
+
+    public LevelData(String songPath, List<LevelObstacleData> obstacles, List<LevelDiagnostic> diagnostics) {
+        this.songPath = songPath;
+        this.obstacles = Collections.unmodifiableList(obstacles);
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+    }
+
+    // 沒有任何障礙物的關卡 (載入失敗時使用)
+    public static LevelData empty() {
+        return new LevelData(null, Collections.emptyList());
+    }
+
+    @Override
+    public String getSongPath() {
+        return songPath;
+    }
+
+    public List<LevelObstacleData> getObstacles() {
+        return obstacles;
+    }
+
+    // 解析時發現的問題，依行號排列
+    public List<LevelDiagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    @Override
+    public int size() {
+        return obstacles.size();
+    }
+
+    @Override
+    public double spawnTriggerX(int index) {
+        return obstacles.get(index).spawnTriggerX;
+    }
+
+    @Override
+    public double width(int index) {
+        return obstacles.get(index).width;
+    }
+
+    @Override
+    public double height(int index) {
+        return obstacles.get(index).height;
+    }
+
+    @Override
+    public double yPosition(int index) {
+        return obstacles.get(index).yPosition;
+    }
+
+    @Override
+    public ObstacleKind kind(int index) {
+        return obstacles.get(index).kind;
+    }
+}
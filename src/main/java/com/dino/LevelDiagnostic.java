@@ -0,0 +1,42 @@
+package com.dino;
+
+/**
+ * A problem found while parsing a level file. Errors drop the line; warnings
+ * keep the obstacle with a default value.
+ */
+public class LevelDiagnostic {
+    private final int line;
+    private final int column;
+    private final boolean error;
+    private final String reason;
+
+    public LevelDiagnostic(int line, int column, boolean error, String reason) {
+        this.line = line;
+        this.column = column;
+        this.error = error;
+        this.reason = reason;
+    }
+
+    // 從 1 開始的行號
+    public int getLine() {
+        return line;
+    }
+
+    // 從 1 開始的欄位 (字元位置)
+    public int getColumn() {
+        return column;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return (error ? "錯誤" : "警告") + " 第 " + line + " 行第 " + column + " 欄：" + reason;
+    }
+}
@@ -0,0 +1,156 @@
+package com.dino;
+
+import javafx.concurrent.Task;
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads a level off the FX thread: opens the level, decodes every image the
+ * level will draw and prepares the music. The result is fully resident, so
+ * the game loop never waits on I/O or decoding. If the task is cancelled or
+ * fails, the level it opened is closed (a streamed level stops its reader
+ * thread); once it succeeds, the level belongs to the PreparedLevel.
+ */
+public class LevelLoadTask extends Task<PreparedLevel> {
+    // 音樂準備最多等待的時間，超過就先開始遊戲
+    private static final long MEDIA_TIMEOUT_MILLIS = 5000;
+
+    private String levelFile;
+    // 已開啟但還沒交出去的關卡，取消或失敗時由這裡關閉
+    private final AtomicReference<SpawnSource> pending = new AtomicReference<>();
+
+    public LevelLoadTask(String levelFile) {
+        this.levelFile = levelFile;
+    }
+
+    @Override
+    protected PreparedLevel call() throws Exception {
+        long start = System.nanoTime();
+        updateMessage("讀取關卡…");
+        SpawnSource source = openLevel();
+        pending.set(source);
+        if (isCancelled()) {
+            // cancelled() 可能在 pending 設定之前就執行過了
+            closePending();
+            return null;
+        }
+
+        // 進度：每種障礙物尺寸一步，再加上玩家、atlas、背景、爆炸與音樂
+        long total = source.variants().size() + 5;
+        long done = 0;
+        updateProgress(done, total);
+
+        updateMessage("解碼圖片…");
+        ImageCache cache = ImageCache.getInstance();
+        for (ObstacleVariant variant : source.variants()) {
+            if (isCancelled()) {
+                return null;
+            }
+            cache.get(variant.getKind().getImagePath(), variant.getWidth(), variant.getHeight(), false);
+            updateProgress(++done, total);
+        }
+        CanvasRenderer.warmUp();
+        updateProgress(++done, total);
+        // 把所有障礙物與玩家圖片合成一張材質
+        List<SpriteAtlas.Sprite> sprites = new ArrayList<>(CanvasRenderer.playerSprites());
+        for (ObstacleVariant variant : source.variants()) {
+            sprites.add(SpriteAtlas.Sprite.of(variant));
+        }
+        SpriteAtlas atlas = SpriteAtlas.pack(sprites);
+        updateProgress(++done, total);
+        // 根據遊戲模式選擇不同背景
+        GameMode mode = GameMode.forLevel(levelFile);
+        String backgroundPath = mode == GameMode.WAVE ? "/picture/bg2.jpg" : "/picture/bg.jpg";
+        Background background = new Background(backgroundPath, GameWorld.WIDTH, GameWorld.HEIGHT);
+        updateProgress(++done, total);
+        Image explosionImage = cache.get("/picture/explosion.png");
+        updateProgress(++done, total);
+
+        // 排行榜在這裡先讀進來，遊戲結束時不需要等待
+        ScoreStore.getInstance();
+        // 殘影也先讀進記憶體，遊戲中不需要讀檔
+        GhostTrail.Reader ghost = loadGhost();
+
+        if (isCancelled()) {
+            return null; // 不必再等音樂準備好
+        }
+        updateMessage("準備音樂…");
+        if (source.getSongPath() != null) {
+            try {
+                BgmPlayer.init(source.getSongPath());
+                if (!BgmPlayer.getInstance().awaitReady(MEDIA_TIMEOUT_MILLIS)) {
+                    System.err.println("音樂尚未準備好，先開始遊戲：" + source.getSongPath());
+                }
+            } catch (RuntimeException e) {
+                System.err.println("載入音樂失敗：" + source.getSongPath() + " - " + e.getMessage());
+            }
+        }
+        updateProgress(total, total);
+        updateMessage("完成");
+
+        return new PreparedLevel(levelFile, mode, source, background, atlas, explosionImage, ghost,
+                System.nanoTime() - start);
+    }
+
+    @Override
+    protected void succeeded() {
+        // 關卡交給 PreparedLevel (GameScene) 管理
+        pending.set(null);
+    }
+
+    @Override
+    protected void cancelled() {
+        closePending();
+    }
+
+    @Override
+    protected void failed() {
+        closePending();
+    }
+
+    // 只有一個執行緒能取得 pending，所以關卡只會被關閉一次
+    private void closePending() {
+        SpawnSource source = pending.getAndSet(null);
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    private GhostTrail.Reader loadGhost() {
+        try {
+            return GhostTrail.Reader.load(GhostTrail.pathFor(levelFile));
+        } catch (IOException e) {
+            System.err.println("讀取殘影失敗：" + GhostTrail.pathFor(levelFile) + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    private SpawnSource openLevel() {
+        try {
+            SpawnSource source = LevelLoader.openSource(levelFile);
+            for (LevelDiagnostic diagnostic : source.getDiagnostics()) {
+                System.err.println(levelFile + " " + diagnostic);
+            }
+            if (source.size() == 0) {
+                System.out.println("未載入關卡資料。切換到無盡模式。");
+                source.close();
+                return openEndless();
+            }
+            return source;
+        } catch (Exception e) {
+            System.err.println("載入關卡檔案失敗：" + levelFile + " - " + e.getMessage());
+            System.out.println("由於關卡載入錯誤，切換到無盡模式。");
+            return openEndless();
+        }
+    }
+
+    // 以關卡名稱當種子，同一個壞掉的關卡每次都產生相同的無盡關卡；重播與殘影記錄無盡關卡的名稱
+    private SpawnSource openEndless() {
+        levelFile = ProceduralSpawnSource.levelName(GameMode.forLevel(levelFile), levelFile.hashCode());
+        return ProceduralSpawnSource.open(levelFile);
+    }
+}
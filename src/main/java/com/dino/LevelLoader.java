@@ -0,0 +1,199 @@
+package com.dino;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads level files in the text format
+ * (first line: song path, then 'spawn_trigger_x,width,height,y_position,type'),
+ * or compiled levels (see LevelCompiler) when the path ends with .dlvl.
+ */
+public class LevelLoader {
+    // 超過此大小的關卡檔案改為串流讀取
+    static final long STREAMING_THRESHOLD = 4L * 1024 * 1024;
+    // 外部關卡目錄 (熱重載)，有同名檔案時優先於 classpath，可用 -Ddino.levelDir 設定
+    static final String LEVEL_DIR = System.getProperty("dino.levelDir");
+    // 文字格式每行的欄位
+    private static final String[] FIELDS = { "spawn_trigger_x", "width", "height", "y_position", "type" };
+
+    private LevelLoader() {
+    }
+
+    /**
+     * Loads a level from the classpath, or from the file system if no such
+     * resource exists. Compiled levels on the file system are memory-mapped.
+     *
+     * @param levelFilePath The resource path (e.g. /level1.txt) or a file path
+     */
+    public static LevelTable load(String levelFilePath) throws IOException {
+        if (ProceduralSpawnSource.isEndless(levelFilePath)) {
+            throw new IOException("無盡模式的關卡是即時產生的，只能用 openSource 開啟：" + levelFilePath);
+        }
+        levelFilePath = resolve(levelFilePath);
+        if (!levelFilePath.endsWith(BinaryLevel.EXTENSION)) {
+            return loadText(levelFilePath);
+        }
+        if (LevelLoader.class.getResource(levelFilePath) == null && Files.isRegularFile(Paths.get(levelFilePath))) {
+            return BinaryLevel.open(Paths.get(levelFilePath));
+        }
+        try (InputStream is = open(levelFilePath)) {
+            return BinaryLevel.read(is);
+        }
+    }
+
+    /**
+     * Opens a level for playing. Level files on the file system larger than
+     * STREAMING_THRESHOLD are streamed from disk (see StreamingSpawnSource),
+     * endless levels are generated (see ProceduralSpawnSource); everything
+     * else is loaded as with load.
+     *
+     * @param levelFilePath The resource path (e.g. /level1.txt), a file path
+     *                      or an endless level name (e.g. endless-dino-42)
+     */
+    public static SpawnSource openSource(String levelFilePath) throws IOException {
+        if (ProceduralSpawnSource.isEndless(levelFilePath)) {
+            try {
+                return ProceduralSpawnSource.open(levelFilePath);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+        levelFilePath = resolve(levelFilePath);
+        Path file = Paths.get(levelFilePath);
+        if (LevelLoader.class.getResource(levelFilePath) == null && Files.isRegularFile(file)
+                && Files.size(file) > STREAMING_THRESHOLD) {
+            return StreamingSpawnSource.open(file);
+        }
+        return new TableSpawnSource(load(levelFilePath));
+    }
+
+    /**
+     * Returns the file with the same name in the external level directory
+     * (-Ddino.levelDir) if there is one, so edited levels are played instead
+     * of the bundled ones; otherwise returns the path unchanged.
+     */
+    public static String resolve(String levelFilePath) {
+        if (LEVEL_DIR == null) {
+            return levelFilePath;
+        }
+        Path external = Paths.get(LEVEL_DIR).resolve(Paths.get(levelFilePath).getFileName().toString());
+        return Files.isRegularFile(external) ? external.toString() : levelFilePath;
+    }
+
+    /**
+     * Loads a level in the text format.
+     *
+     * @param levelFilePath The resource path (e.g. /level1.txt) or a file path
+     */
+    public static LevelData loadText(String levelFilePath) throws IOException {
+        try (InputStream is = open(levelFilePath)) {
+            return parse(is);
+        }
+    }
+
+    public static InputStream open(String levelFilePath) throws IOException {
+        InputStream is = LevelLoader.class.getResourceAsStream(levelFilePath);
+        if (is != null) {
+            return is;
+        }
+        try {
+            return new FileInputStream(levelFilePath);
+        } catch (FileNotFoundException e) {
+            throw new FileNotFoundException("Cannot find level: " + levelFilePath);
+        }
+    }
+
+    public static LevelData parse(InputStream is) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+        List<LevelObstacleData> levelSequence = new ArrayList<>();
+        List<LevelDiagnostic> diagnostics = new ArrayList<>();
+
+        String line, songpath;
+        // 載入音樂路徑
+        songpath = reader.readLine();
+        if (songpath == null) {
+            throw new IOException("關卡檔案是空的");
+        }
+        // 載入障礙物 (音樂路徑是第 1 行)
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            LevelObstacleData data = parseLine(line, lineNumber, diagnostics);
+            if (data != null) {
+                levelSequence.add(data);
+            }
+        }
+        return new LevelData(songpath.trim(), levelSequence, diagnostics);
+    }
+
+    /**
+     * Parses one obstacle line of the text format.
+     *
+     * @param lineNumber  The 1-based line number, for diagnostics
+     * @param diagnostics Receives the problems found on the line, or null to ignore them
+     * @return The obstacle, or null for comments, blank and invalid lines
+     */
+    static LevelObstacleData parseLine(String line, int lineNumber, List<LevelDiagnostic> diagnostics) {
+        if (line.trim().startsWith("#") || line.trim().isEmpty()) {
+            return null;
+        }
+
+        String[] parts = line.split(",");
+        if (parts.length != FIELDS.length) {
+            report(diagnostics, lineNumber, 1, true, "格式無效，預期為 '" + String.join(",", FIELDS) + "'，實際有 "
+                    + parts.length + " 個欄位");
+            return null;
+        }
+        double[] values = new double[FIELDS.length - 1];
+        int column = 1;
+        for (int field = 0; field < parts.length; field++) {
+            String part = parts[field];
+            // 欄位內容 (去除空白後) 在該行中的位置
+            int start = column + leadingSpaces(part);
+            String text = part.trim();
+            if (field < values.length) {
+                try {
+                    values[field] = Double.parseDouble(text);
+                } catch (NumberFormatException e) {
+                    report(diagnostics, lineNumber, start, true, FIELDS[field] + " 不是有效的數字：'" + text + "'");
+                    return null;
+                }
+            } else {
+                ObstacleKind kind = ObstacleKind.fromKeyword(text);
+                if (kind == null) {
+                    report(diagnostics, lineNumber, start, false,
+                            "未知障礙物類型 '" + text + "'，預設為 '" + ObstacleKind.REGULAR.getKeyword() + "'");
+                    kind = ObstacleKind.REGULAR;
+                }
+                return new LevelObstacleData(values[0], values[1], values[2], values[3], kind);
+            }
+            column += part.length() + 1;
+        }
+        return null;
+    }
+
+    private static int leadingSpaces(String text) {
+        int i = 0;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static void report(List<LevelDiagnostic> diagnostics, int line, int column, boolean error,
+            String reason) {
+        if (diagnostics != null) {
+            diagnostics.add(new LevelDiagnostic(line, column, error, reason));
+        }
+    }
+}
@@ -5,13 +5,13 @@ public class LevelObstacleData {
     double width;
     double height;
     double yPosition;
-    String type;
+    ObstacleKind kind;
 
-    public LevelObstacleData(double spawnTriggerX, double width, double height, double yPosition, String type) {
+    public LevelObstacleData(double spawnTriggerX, double width, double height, double yPosition, ObstacleKind kind) {
         this.spawnTriggerX = spawnTriggerX;
         this.width = width;
         this.height = height;
         this.yPosition = yPosition;
-        this.type = type;
+        this.kind = kind;
     }
 }
\ No newline at end of file
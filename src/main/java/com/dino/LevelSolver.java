@@ -0,0 +1,351 @@
+package com.dino;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Checks whether a level can be completed by searching over inputs on the
+ * headless simulation. Every tick, each surviving world is copied once with
+ * the key held and once with it released; worlds that end up in the same
+ * player state are merged, and the rest are expanded in parallel on the
+ * fork-join pool. As long as the number of distinct states stays under the
+ * beam width the search is exhaustive, so "unsolvable" is a proof.
+ *
+ * Endless levels never complete, so for them the search succeeds once a
+ * world reaches the goal distance (-Ddino.solverDistance, by default past
+ * the point where the difficulty stops ramping up).
+ *
+ * Usage: LevelSolver <level> [beamWidth] [tickRate] [witness.drpl]
+ */
+public class LevelSolver {
+    // 報告中列出的最窄區段數量
+    private static final int NARROWEST_COUNT = 5;
+    // 無盡關卡搜尋到這個距離就算通過，可用 -Ddino.solverDistance 調整
+    private static final double ENDLESS_DISTANCE = Double.parseDouble(
+            System.getProperty("dino.solverDistance", String.valueOf(ProceduralSpawnSource.RAMP_DISTANCE + 5_000)));
+
+    private final String levelFile;
+    private final SpawnSource level;
+    private final GameMode mode;
+    private final int tickRate;
+    private final int beamWidth;
+    // 到達這個距離就算通過 (無盡關卡)，一般關卡要過關
+    private double goalDistance = Double.POSITIVE_INFINITY;
+
+    /**
+     * @param levelFile The level path stored in the witness replay
+     */
+    public LevelSolver(String levelFile, LevelTable level, GameMode mode, int tickRate, int beamWidth) {
+        this(levelFile, new TableSpawnSource(level), mode, tickRate, beamWidth);
+    }
+
+    /**
+     * @param levelFile The level path stored in the witness replay
+     * @param level     The level to search; it is only forked, never advanced
+     */
+    public LevelSolver(String levelFile, SpawnSource level, GameMode mode, int tickRate, int beamWidth) {
+        this.levelFile = levelFile;
+        this.level = level;
+        this.mode = mode;
+        this.tickRate = tickRate;
+        this.beamWidth = beamWidth;
+        if (level.isEndless()) {
+            goalDistance = ENDLESS_DISTANCE;
+        }
+    }
+
+    /**
+     * Counts a world as having passed once it reaches the given distance,
+     * instead of only when the level is complete.
+     */
+    public void setGoalDistance(double goalDistance) {
+        this.goalDistance = goalDistance;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("用法: LevelSolver <關卡檔案> [beam 寬度] [tickRate] [輸出重播檔]");
+            System.exit(2);
+        }
+        String levelFile = args[0];
+        int beamWidth = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+        int tickRate = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+
+        SpawnSource level;
+        GameMode mode;
+        if (ProceduralSpawnSource.isEndless(levelFile)) {
+            ProceduralSpawnSource endless = ProceduralSpawnSource.open(levelFile);
+            level = endless;
+            mode = endless.getMode();
+        } else {
+            level = new TableSpawnSource(LevelLoader.load(levelFile));
+            mode = GameMode.forLevel(levelFile);
+        }
+        long start = System.nanoTime();
+        LevelSolver solver = new LevelSolver(levelFile, level, mode, tickRate, beamWidth);
+        Result result = solver.solve();
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("關卡: %s, 模式: %s, 障礙物: %s, beam: %d, 執行緒: %d%n", levelFile, mode,
+                level.isEndless() ? "無限 (搜尋到距離 " + (long) solver.goalDistance + ")" : level.size(), beamWidth,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("搜尋 %d tick，展開 %d 個狀態，耗時 %.0f ms%s%n", result.ticks, result.expanded, elapsed / 1e6,
+                result.pruned ? "" : " (完整搜尋)");
+        if (result.isSolvable()) {
+            System.out.println("結果: 可以過關");
+        } else {
+            System.out.printf("結果: 無法過關%s，所有狀態在 tick %d (距離 %.0f) 前死亡%n", result.pruned ? " (beam 有截斷，可能誤判)" : "",
+                    result.ticks, result.failDistance);
+            if (!Double.isNaN(result.blockingSpawnTriggerX)) {
+                System.out.printf("第一個無法通過的障礙物: spawnTriggerX = %.0f%n", result.blockingSpawnTriggerX);
+            }
+        }
+        System.out.println("最窄的區段 (該 tick 存活的相異狀態數):");
+        for (long[] window : result.narrowest) {
+            System.out.printf("  tick %d, 距離 %.0f: %d 種狀態%n", window[0],
+                    window[0] * Obstacle.OBSTACLE_SPEED / tickRate, window[1]);
+        }
+
+        if (result.isSolvable() && args.length > 3) {
+            result.witness.write(Paths.get(args[3]));
+            System.out.println("已輸出過關的重播：" + args[3]);
+        }
+        System.exit(result.isSolvable() ? 0 : 1);
+    }
+
+    public Result solve() {
+        double dt = 1.0 / tickRate;
+        GameWorld root = new GameWorld(mode);
+        root.loadLevel(level);
+
+        List<State> layer = new ArrayList<>();
+        layer.add(new State(root, null));
+        // 每個 tick 存活的相異狀態數
+        long[] survivors = new long[64];
+        boolean pruned = false;
+        long expanded = 0;
+        int tick = 0;
+
+        while (true) {
+            List<State> current = layer;
+            int completed = tick;
+            State[] children = new State[current.size() * 2];
+            // 每個狀態分別嘗試放開與按住
+            IntStream.range(0, children.length).parallel().forEach(i -> {
+                State parent = current.get(i / 2);
+                boolean pressed = (i & 1) != 0;
+                GameWorld world = parent.world.copy();
+                if (world.getPlayer().isUpKeyPressed() != pressed) {
+                    world.setUpKeyPressed(pressed);
+                }
+                world.tick(dt);
+                if (!world.isDying()) {
+                    children[i] = new State(world, new Trace(parent.trace, completed, pressed));
+                }
+            });
+            expanded += children.length;
+            tick++;
+
+            Map<StateKey, State> unique = new HashMap<>();
+            for (State child : children) {
+                if (child == null) {
+                    continue;
+                }
+                if (child.world.isLevelComplete() || child.world.getGameWorldDistance() >= goalDistance) {
+                    return new Result(tick, expanded, pruned, toReplay(child, tick), Double.NaN, Double.NaN,
+                            narrowest(survivors, tick - 1, tickRate));
+                }
+                unique.putIfAbsent(new StateKey(child.world), child);
+            }
+            if (unique.isEmpty()) {
+                double distance = current.get(0).world.getGameWorldDistance();
+                return new Result(tick, expanded, pruned, null, distance, blockingTrigger(distance),
+                        narrowest(survivors, tick - 1, tickRate));
+            }
+
+            layer = new ArrayList<>(unique.values());
+            if (layer.size() > beamWidth) {
+                pruned = true;
+                layer = spread(layer);
+            }
+            if (tick - 1 == survivors.length) {
+                survivors = Arrays.copyOf(survivors, survivors.length * 2);
+            }
+            survivors[tick - 1] = unique.size();
+        }
+    }
+
+    // 超過 beam 寬度時，依高度排序後平均取樣，盡量保留不同的狀態
+    private List<State> spread(List<State> states) {
+        states.sort(Comparator.comparingDouble((State s) -> s.world.getPlayer().getY())
+                .thenComparingDouble(s -> s.world.getPlayer().getYVelocity()));
+        List<State> kept = new ArrayList<>(beamWidth);
+        for (int i = 0; i < beamWidth; i++) {
+            kept.add(states.get((int) ((long) i * states.size() / beamWidth)));
+        }
+        return kept;
+    }
+
+    // 死亡時玩家附近的障礙物：生成於畫面右緣，移到玩家位置時撞上
+    private double blockingTrigger(double distance) {
+        double maxWidth = 0;
+        for (ObstacleVariant variant : level.variants()) {
+            maxWidth = Math.max(maxWidth, variant.getWidth());
+        }
+        double from = distance + Player.START_X - GameWorld.WIDTH - maxWidth;
+        // 死亡的 tick 與生成時的一個 tick 落差
+        double to = distance + Player.START_X + Player.PLAYER_WIDTH - GameWorld.WIDTH
+                + 2 * Obstacle.OBSTACLE_SPEED / tickRate;
+        // 障礙物依生成位置排序，第一個落在範圍內的就是答案
+        SpawnSource scan = level.fork();
+        scan.rewind();
+        double found = Double.NaN;
+        while (!scan.isExhausted() && scan.isReady() && scan.spawnTriggerX() <= to) {
+            if (scan.spawnTriggerX() >= from) {
+                found = scan.spawnTriggerX();
+                break;
+            }
+            scan.advance();
+        }
+        scan.close();
+        return found;
+    }
+
+    // 存活狀態最少的幾個 tick，相鄰的 tick 只取一個
+    private static List<long[]> narrowest(long[] survivors, int ticks, int skipTicks) {
+        // 開頭只有一個起始狀態，一定很窄，略過第一秒
+        int skip = Math.min(ticks, skipTicks);
+        Integer[] order = new Integer[ticks - skip];
+        for (int i = skip; i < ticks; i++) {
+            order[i - skip] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> survivors[i]).thenComparingInt(i -> i));
+        List<long[]> result = new ArrayList<>();
+        for (int i : order) {
+            if (result.size() == NARROWEST_COUNT) {
+                break;
+            }
+            // 同一個區段只報告一次 (相距一秒以內視為同一段)
+            boolean near = result.stream().anyMatch(w -> Math.abs(w[0] - (i + 1)) < skipTicks);
+            if (!near) {
+                result.add(new long[] { i + 1, survivors[i] });
+            }
+        }
+        return result;
+    }
+
+    private Replay toReplay(State state, int ticks) {
+        List<Trace> path = new ArrayList<>();
+        for (Trace t = state.trace; t != null; t = t.parent) {
+            path.add(t);
+        }
+        Replay.Recorder recorder = new Replay.Recorder();
+        boolean pressed = false;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Trace t = path.get(i);
+            if (t.pressed != pressed) {
+                recorder.record(t.tick, t.pressed);
+                pressed = t.pressed;
+            }
+        }
+        return recorder.finish(levelFile, tickRate, ticks, state.world.getScore());
+    }
+
+    private static final class State {
+        final GameWorld world;
+        final Trace trace;
+
+        State(GameWorld world, Trace trace) {
+            this.world = world;
+            this.trace = trace;
+        }
+    }
+
+    // 從起點到某個狀態的輸入，共用前綴
+    private static final class Trace {
+        final Trace parent;
+        final int tick;
+        final boolean pressed;
+
+        Trace(Trace parent, int tick, boolean pressed) {
+            this.parent = parent;
+            this.tick = tick;
+            this.pressed = pressed;
+        }
+    }
+
+    // 同一個 tick 的世界只有玩家與平台接觸狀態不同，相同時未來也完全相同
+    private static final class StateKey {
+        final double y;
+        final double yVelocity;
+        final boolean jumping;
+        final boolean upKeyPressed;
+        final long contacts;
+
+        StateKey(GameWorld world) {
+            Player player = world.getPlayer();
+            this.y = player.getY();
+            this.yVelocity = player.getYVelocity();
+            this.jumping = player.isJumping();
+            this.upKeyPressed = player.isUpKeyPressed();
+            this.contacts = world.getObstacles().contactHash();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof StateKey)) {
+                return false;
+            }
+            StateKey other = (StateKey) o;
+            return Double.compare(y, other.y) == 0 && Double.compare(yVelocity, other.yVelocity) == 0
+                    && jumping == other.jumping && upKeyPressed == other.upKeyPressed && contacts == other.contacts;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(y, yVelocity, jumping, upKeyPressed, contacts);
+        }
+    }
+
+    public static class Result {
+        final int ticks;
+        final long expanded;
+        final boolean pruned;
+        final Replay witness;
+        final double failDistance;
+        final double blockingSpawnTriggerX;
+        final List<long[]> narrowest;
+
+        Result(int ticks, long expanded, boolean pruned, Replay witness, double failDistance,
+                double blockingSpawnTriggerX, List<long[]> narrowest) {
+            this.ticks = ticks;
+            this.expanded = expanded;
+            this.pruned = pruned;
+            this.witness = witness;
+            this.failDistance = failDistance;
+            this.blockingSpawnTriggerX = blockingSpawnTriggerX;
+            this.narrowest = narrowest;
+        }
+
+        public boolean isSolvable() {
+            return witness != null;
+        }
+
+        // 過關的輸入 (不含關卡路徑)，無法過關時為 null
+        public Replay getWitness() {
+            return witness;
+        }
+
+        public double getBlockingSpawnTriggerX() {
+            return blockingSpawnTriggerX;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.dino;
+
+/**
+ * Random access to the obstacles of a level, ordered as they spawn.
+ * Implemented by LevelData (parsed text files) and BinaryLevel (compiled,
+ * memory-mapped files), so the game does not care which one it plays.
+ */
+public interface LevelTable {
+
+    String getSongPath();
+
+    int size();
+
+    double spawnTriggerX(int index);
+
+    double width(int index);
+
+    double height(int index);
+
+    double yPosition(int index);
+
+    ObstacleKind kind(int index);
+}
@@ -0,0 +1,157 @@
+package com.dino;
+
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches the external level directory (-Ddino.levelDir) and re-parses the
+ * level that is open whenever its file changes, so edits show up in the
+ * running game or preview without restarting. Only the watched file is
+ * parsed, on the watcher thread; its new images are decoded there too, and
+ * the listener is called on the FX thread with the parsed level.
+ * Only text levels are watched: compiled levels are memory-mapped and must
+ * not change while mapped.
+ */
+public class LevelWatcher {
+    private static LevelWatcher instance; // Singleton 實例
+    // 編輯器存檔時常分成好幾次寫入，最後一次修改後等這麼久再讀取
+    private static final long SETTLE_MILLIS = 20;
+
+    private final Path directory;
+    private final WatchService watchService;
+    // 目前監看的檔名與收到新關卡時呼叫的函式
+    private volatile Registration registration;
+
+    private LevelWatcher(Path directory) throws IOException {
+        this.directory = directory;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread thread = new Thread(this::run, "level-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts watching on first use.
+     *
+     * @return The watcher, or null if -Ddino.levelDir is not set or cannot be watched
+     */
+    public static synchronized LevelWatcher getInstance() {
+        if (instance == null && LevelLoader.LEVEL_DIR != null) {
+            try {
+                instance = new LevelWatcher(Paths.get(LevelLoader.LEVEL_DIR));
+                System.out.println("監看關卡目錄：" + instance.directory.toAbsolutePath());
+            } catch (IOException e) {
+                System.err.println("無法監看關卡目錄：" + LevelLoader.LEVEL_DIR + " - " + e.getMessage());
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the watched level. Only one level is watched at a time, the one
+     * of the scene on screen.
+     *
+     * @param levelFile The level path as given to LevelLoader (e.g. /level1.txt)
+     * @param listener  Called on the FX thread with the re-parsed level
+     */
+    public void watch(String levelFile, Consumer<LevelData> listener) {
+        String fileName = Paths.get(levelFile).getFileName().toString();
+        if (fileName.endsWith(BinaryLevel.EXTENSION)) {
+            registration = null;
+            return;
+        }
+        registration = new Registration(fileName, listener);
+    }
+
+    // 停止監看 (只有在仍是同一個 listener 時)
+    public void unwatch(Consumer<LevelData> listener) {
+        Registration current = registration;
+        if (current != null && current.listener == listener) {
+            registration = null;
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = collect(key);
+                // 等檔案寫完：直到一段時間內沒有新的事件
+                WatchKey next;
+                while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= collect(next);
+                }
+                if (changed) {
+                    reload(registration);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 結束監看
+        }
+    }
+
+    // 事件中是否有目前監看的檔案
+    private boolean collect(WatchKey key) {
+        Registration current = registration;
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (current != null && context instanceof Path && context.toString().equals(current.fileName)) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload(Registration target) {
+        if (target == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        Path file = directory.resolve(target.fileName);
+        LevelData level;
+        try {
+            level = LevelLoader.loadText(file.toString());
+        } catch (IOException e) {
+            System.err.println("重新載入關卡失敗：" + file + " - " + e.getMessage());
+            return;
+        }
+        for (LevelDiagnostic diagnostic : level.getDiagnostics()) {
+            System.err.println(file + " " + diagnostic);
+        }
+        // 新尺寸的圖片在這裡解碼，遊戲迴圈中不需要解碼
+        ImageCache.getInstance().warmUp(new TableSpawnSource(level).variants());
+        long parsed = System.nanoTime();
+        Platform.runLater(() -> {
+            // 等待期間換了場景就不套用
+            if (registration == target) {
+                target.listener.accept(level);
+                System.out.printf("已重新載入 %s (%d 個障礙物)：讀取 %.1f ms，套用 %.1f ms%n", target.fileName,
+                        level.size(), (parsed - start) / 1e6, (System.nanoTime() - parsed) / 1e6);
+            }
+        });
+    }
+
+    private static final class Registration {
+        final String fileName;
+        final Consumer<LevelData> listener;
+
+        Registration(String fileName, Consumer<LevelData> listener) {
+            this.fileName = fileName;
+            this.listener = listener;
+        }
+    }
+}
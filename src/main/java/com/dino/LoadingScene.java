@@ -0,0 +1,45 @@
+package com.dino;
+
+import javafx.concurrent.Task;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+
+/**
+ * Shown while a LevelLoadTask runs; displays its progress and message.
+ */
+public class LoadingScene extends VBox {
+    private final ProgressBar progressBar = new ProgressBar();
+    private final Label messageLabel = new Label();
+    private final Task<?> task;
+
+    public LoadingScene(Task<?> task) {
+        super(20);
+        this.task = task;
+        setAlignment(Pos.CENTER);
+        setPrefSize(MainApplication.getWIDTH(), MainApplication.getHEIGHT());
+        setStyle("-fx-background-color: lightblue;");
+
+        Label title = new Label("載入中");
+        title.setFont(new Font("Arial", 32));
+        messageLabel.setFont(new Font("Arial", 16));
+        progressBar.setPrefWidth(MainApplication.getWIDTH() / 2.0);
+        // 屬性由 Task 在 FX 執行緒上更新
+        progressBar.progressProperty().bind(task.progressProperty());
+        messageLabel.textProperty().bind(task.messageProperty());
+
+        Label hint = new Label("按 M 取消");
+        hint.setFont(new Font("Arial", 14));
+
+        getChildren().addAll(title, progressBar, messageLabel, hint);
+    }
+
+    public void handleInput(KeyCode code) {
+        if (code == KeyCode.M) {
+            task.cancel();
+        }
+    }
+}
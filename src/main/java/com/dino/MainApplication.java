@@ -1,45 +1,117 @@
 package com.dino;
 
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import javafx.geometry.Pos;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MainApplication extends Application {
 
-    private static final int WIDTH = 800;
-    private static final int HEIGHT = 600;
+    private static final int WIDTH = GameWorld.WIDTH;
+    private static final int HEIGHT = GameWorld.HEIGHT;
+
+    // 效能統計輸出的目錄，可用 -Ddino.metricsDir 調整
+    private static final String METRICS_DIR = System.getProperty("dino.metricsDir", "metrics");
+    // 無盡模式的種子，預設為今天的日期 (每天一樣的關卡)
+    private static final long ENDLESS_SEED = Long.getLong("dino.endlessSeed",
+            Long.parseLong(LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE)));
+    // -Ddino.training=true：產生 AppCDS 封存檔用的訓練執行，自動玩一次關卡 1 後結束
+    private static final boolean TRAINING = Boolean.getBoolean("dino.training");
+    private static final double TRAINING_SECONDS = 8;
 
     private Stage primaryStage;
+    // start() 被呼叫的時間，用來計算到第一個選單畫面的啟動時間
+    private long startMillis;
+    private long startNanos;
+    private boolean startupReported = false;
+    // 在背景載入關卡與素材，避免卡住 FX 執行緒
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "level-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @Override
     public void start(Stage primaryStage) {
+        startMillis = System.currentTimeMillis();
+        startNanos = System.nanoTime();
         this.primaryStage = primaryStage;
         primaryStage.setTitle("Dino 遊戲與關卡預覽");
         primaryStage.setResizable(false);
 
+        // --replay <檔案>：直接播放重播檔
+        List<String> args = getParameters().getRaw();
+        if (args.size() >= 2 && args.get(0).equals("--replay")) {
+            try {
+                Replay replay = Replay.read(Paths.get(args.get(1)));
+                startLevel(replay.getLevelFile(), replay);
+                primaryStage.show();
+                preloadScreens();
+                return;
+            } catch (IOException e) {
+                System.err.println("讀取重播檔失敗：" + args.get(1) + " - " + e.getMessage());
+            }
+        }
         showStartMenu();
+        preloadScreens();
     }
 
-    public void showStartMenu() {
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/MainMenu.fxml"));
-            Parent root = loader.load();
+    // 結束畫面在背景預先載入，死亡或過關時不必在 FX 執行緒解析 FXML
+    // (在選單載入之後才排入，避免和第一個選單畫面搶 SceneManager)
+    private void preloadScreens() {
+        loader.execute(() -> SceneManager.getInstance().preload(SceneManager.Screen.GAME_OVER,
+                SceneManager.Screen.LEVEL_COMPLETE));
+    }
 
-            // Get the controller and set the main application reference
-            MainMenuController controller = loader.getController();
-            controller.setMainApp(this);
+    // 結束時把這次的效能統計存成 JSON (摘要) 與 CSV (完整分佈)
+    @Override
+    public void stop() {
+        // 等待排行榜與重播寫完
+        ScoreStore.shutdown();
+        GameScene.shutdownWriter();
+        PerfMetrics metrics = PerfMetrics.getInstance();
+        if (metrics.get(PerfMetrics.Phase.FRAME_INTERVAL).getCount() == 0) {
+            return; // 沒有玩過任何關卡
+        }
+        String name = "perf-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path dir = Paths.get(METRICS_DIR);
+        try {
+            Files.createDirectories(dir);
+            metrics.writeJson(dir.resolve(name + ".json"));
+            metrics.writeCsv(dir.resolve(name + ".csv"));
+            System.out.println("已儲存效能統計：" + dir.resolve(name + ".json"));
+        } catch (IOException e) {
+            System.err.println("儲存效能統計失敗：" + dir + " - " + e.getMessage());
+        }
+    }
 
-            Scene scene = new Scene(root, WIDTH, HEIGHT);
-            primaryStage.setScene(scene);
+    public void showStartMenu() {
+        long start = System.nanoTime();
+        try {
+            // 選單只載入一次，之後直接換回同一個 Scene
+            SceneManager scenes = SceneManager.getInstance();
+            primaryStage.setScene(scenes.getMenuScene(this));
             primaryStage.show();
+            scenes.recordSwap(start);
+            reportStartup();
         } catch (IOException e) {
             e.printStackTrace();
             // Fallback to the old menu if FXML loading fails
@@ -66,17 +138,102 @@ public class MainApplication extends Application {
         level2Button.setFont(new Font("Arial", 24));
         level2Button.setOnAction(e -> startGame("/level2.txt"));
 
-        menuRoot.getChildren().addAll(title, level1Button, level2Button);
+        Button endlessDinoButton = new Button("無盡模式 (恐龍)");
+        endlessDinoButton.setFont(new Font("Arial", 24));
+        endlessDinoButton.setOnAction(e -> startEndless(GameMode.DINO));
+
+        Button endlessWaveButton = new Button("無盡模式 (波浪)");
+        endlessWaveButton.setFont(new Font("Arial", 24));
+        endlessWaveButton.setOnAction(e -> startEndless(GameMode.WAVE));
+
+        menuRoot.getChildren().addAll(title, level1Button, level2Button, endlessDinoButton, endlessWaveButton);
 
         Scene menuScene = new Scene(menuRoot, WIDTH, HEIGHT);
         primaryStage.setScene(menuScene);
         primaryStage.show();
+        reportStartup();
+    }
+
+    /**
+     * Prints the time from process start to the first frame of the main menu,
+     * once per run. The frame is taken as the first pulse after the menu is
+     * shown, which is the pulse that renders it.
+     */
+    private void reportStartup() {
+        if (startupReported) {
+            return;
+        }
+        startupReported = true;
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                long menuMillis = (now - startNanos) / 1_000_000;
+                // 行程啟動到 start()：JVM、類別載入與 JavaFX 初始化
+                long launchMillis = ProcessHandle.current().info().startInstant()
+                        .map(instant -> startMillis - instant.toEpochMilli())
+                        .orElse(-1L);
+                String cds = System.getProperty("java.vm.info", "").contains("sharing") ? "開啟" : "關閉";
+                if (launchMillis >= 0) {
+                    System.out.printf("啟動時間: %d ms 到第一個選單畫面 (JVM 與 JavaFX %d ms, 選單 %d ms, CDS %s)%n",
+                            launchMillis + menuMillis, launchMillis, menuMillis, cds);
+                } else {
+                    System.out.printf("啟動時間: start() 到第一個選單畫面 %d ms (CDS %s)%n", menuMillis, cds);
+                }
+                if (TRAINING) {
+                    train();
+                }
+            }
+        }.start();
     }
 
+    // 訓練執行：從選單進入關卡 1，玩到結束畫面時已載入一般遊玩會用到的類別，之後離開
+    private void train() {
+        startGame("/level1.txt");
+        PauseTransition exit = new PauseTransition(Duration.seconds(TRAINING_SECONDS));
+        exit.setOnFinished(event -> Platform.exit());
+        exit.play();
+    }
+
+    /**
+     * Shows a loading screen while the level is prepared in the background, then
+     * starts the game once everything is loaded.
+     */
     public void startGame(String levelFile) {
-        GameScene game = new GameScene(this, levelFile);
+        startLevel(levelFile, null);
+    }
+
+    // 以 -Ddino.endlessSeed (預設今天日期) 產生的無盡關卡
+    public void startEndless(GameMode mode) {
+        startGame(ProceduralSpawnSource.levelName(mode, ENDLESS_SEED));
+    }
+
+    private void startLevel(String levelFile, Replay replay) {
+        LevelLoadTask task = new LevelLoadTask(levelFile);
+        LoadingScene loading = new LoadingScene(task);
+        Scene loadingScene = new Scene(loading, WIDTH, HEIGHT);
+        loadingScene.setOnKeyPressed(event -> loading.handleInput(event.getCode()));
+
+        task.setOnSucceeded(event -> {
+            PreparedLevel level = task.getValue();
+            System.out.printf("關卡載入耗時 %.1f ms%n", level.getLoadNanos() / 1e6);
+            showGame(level, replay);
+        });
+        task.setOnFailed(event -> {
+            System.err.println("載入關卡失敗：" + levelFile + " - " + task.getException());
+            showStartMenu();
+        });
+        task.setOnCancelled(event -> showStartMenu());
+
+        primaryStage.setScene(loadingScene);
+        loader.execute(task);
+    }
+
+    private void showGame(PreparedLevel level, Replay replay) {
+        GameScene game = new GameScene(this, level, replay);
         Scene gameScene = new Scene(game, WIDTH, HEIGHT);
 
+        // GameScene 沒有焦點時的備用處理器；有焦點時 GameScene 會 consume 按鍵事件
         gameScene.setOnKeyPressed(event -> game.handleInput(event.getCode()));
 
         // 再次搶回焦點，確保 GameScene 可以立刻拿到鍵盤輸入
@@ -10,6 +10,12 @@ public class MainMenuController {
     
     @FXML
     private Button level2Button;
+
+    @FXML
+    private Button endlessDinoButton;
+
+    @FXML
+    private Button endlessWaveButton;
     
     private MainApplication mainApp;
     
@@ -30,4 +36,18 @@ public class MainMenuController {
             mainApp.startGame("/level2.txt");
         }
     }
+
+    @FXML
+    private void playEndlessDino() {
+        if (mainApp != null) {
+            mainApp.startEndless(GameMode.DINO);
+        }
+    }
+
+    @FXML
+    private void playEndlessWave() {
+        if (mainApp != null) {
+            mainApp.startEndless(GameMode.WAVE);
+        }
+    }
 }
\ No newline at end of file
@@ -1,40 +1,103 @@
 package com.dino;
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
-
-public abstract class Obstacle {
+public abstract class Obstacle implements Cloneable {
     protected static final int OBSTACLE_MIN_WIDTH = 20;
     protected static final int OBSTACLE_MAX_WIDTH = 40;
     protected static final int OBSTACLE_MIN_HEIGHT = 30;
     protected static final int OBSTACLE_MAX_HEIGHT = 60;
-    protected static final int OBSTACLE_SPEED = 10;
+    // 每秒移動的像素，與關卡檔案「遊戲世界每秒前進600像素」一致
+    protected static final double OBSTACLE_SPEED = 600;
+    // 一般障礙物：玩家腳底陷入頂端這個距離內不算撞到
+    protected static final double FOOT_TOLERANCE = 10;
 
+    // 世界座標 (關卡障礙物在世界中靜止，由攝影機往前移動)
     protected double x;
+    protected double prevX;
     protected double y;
     protected double width;
     protected double height;
-    protected Image image;
     protected long spawnTime;
+    // 繪製端用來快取此障礙物的繪圖資源 (例如圖片)，模擬本身不使用
+    private Object renderHandle;
+
+    public Obstacle(double width, double height, double yPosition) {
+        this.x = GameWorld.WIDTH;
+        this.prevX = x;
+        this.width = width;
+        this.height = height;
+        this.y = yPosition;
+    }
+
+    public abstract ObstacleKind getKind();
+
+    // 複製目前的狀態，包含子類別的欄位 (搜尋輸入時使用)
+    public Obstacle copy() {
+        try {
+            return (Obstacle) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
 
-    public Obstacle(double width, double height, double yPosition, String imagePath) {
-        this.x = MainApplication.getWIDTH();
+    /**
+     * Returns a pooled obstacle to the state of a freshly constructed one.
+     */
+    public void reset(double width, double height, double yPosition) {
+        // 尺寸不同時，繪製端快取的圖片也不再適用
+        if (width != this.width || height != this.height) {
+            renderHandle = null;
+        }
+        this.x = GameWorld.WIDTH;
+        this.prevX = x;
         this.width = width;
         this.height = height;
         this.y = yPosition;
-        this.image = new Image(getClass().getResourceAsStream(imagePath), width, height, false, false);
     }
 
-    public void update() {
-        x -= OBSTACLE_SPEED;
+    /**
+     * Converts the spawn position, given relative to the screen, to world
+     * coordinates.
+     *
+     * @param cameraX The world x of the left edge of the screen at spawn time
+     */
+    public void placeInWorld(double cameraX) {
+        x += cameraX;
+        prevX = x;
     }
 
-    public abstract void render(GraphicsContext gc);
+    /**
+     * Advances the obstacle by one simulation tick. Level obstacles stand still
+     * in world coordinates, so only obstacles that move with the camera are updated.
+     *
+     * @param dt The tick length in seconds
+     */
+    public void update(double dt) {
+    }
+
+    // 是否跟著攝影機移動 (固定在畫面上)
+    public boolean movesWithCamera() {
+        return false;
+    }
+
+    // 玩家是否正站在此障礙物上 (需要在離開時再判定一次)
+    public boolean isInContact() {
+        return false;
+    }
 
-    public abstract void render(GraphicsContext gc, double cameraY);
+    /**
+     * Returns the drawing position between the previous and the current tick.
+     *
+     * @param alpha The interpolation factor in [0, 1]
+     */
+    public double getRenderX(double alpha) {
+        return prevX + (x - prevX) * alpha;
+    }
 
-    public boolean isOffScreen() {
-        return x + width < 0;
+    /**
+     * @param cameraX The world x of the left edge of the screen
+     */
+    public boolean isOffScreen(double cameraX) {
+        return x + width < cameraX;
     }
 
     // 撞到return true
@@ -43,17 +106,77 @@ public abstract class Obstacle {
         int playerHeight = Player.PLAYER_HEIGHT;
 
         if (player.getX() + playerWidth >= this.x && player.getX() <= this.x + width) {
-            if (player.getY() + playerHeight - 10 >= this.y && player.getY() <= this.y + height) {
+            if (player.getY() + playerHeight - FOOT_TOLERANCE >= this.y && player.getY() <= this.y + height) {
                 return true;
             }
         }
-        return false;
+        // 速度快或 tick 頻率低時，可能在兩個 tick 之間整個穿過障礙物
+        return !Double.isNaN(timeOfImpact(player, FOOT_TOLERANCE));
+    }
+
+    /**
+     * Sweeps the player's box along its straight path from the previous tick
+     * to the current one against this obstacle (edges inclusive, as in
+     * getColide), so contacts between two ticks are found at any speed.
+     *
+     * Only overlaps that last for part of the tick count: touching an edge at
+     * the end of the tick is left to the discrete test of each obstacle, which
+     * decides whether its edges are inclusive.
+     *
+     * @param footTolerance How far the player's feet may sink into the top
+     * @return The fraction of the tick at which the player first touches the
+     *         obstacle, or NaN if it does not touch it or already did at the
+     *         start of the tick (that contact was handled by the previous tick)
+     */
+    protected double timeOfImpact(Player player, double footTolerance) {
+        double x0 = player.getPrevX();
+        double y0 = player.getPrevY();
+        double dx = player.getX() - x0;
+        double dy = player.getY() - y0;
+        // 玩家左上角落在這個範圍內就會重疊
+        double minX = x - Player.PLAYER_WIDTH;
+        double maxX = x + width;
+        double minY = y - (Player.PLAYER_HEIGHT - footTolerance);
+        double maxY = y + height;
+        if (x0 >= minX && x0 <= maxX && y0 >= minY && y0 <= maxY) {
+            return Double.NaN;
+        }
+
+        // 兩個軸各自求出重疊的時間區間，再取交集
+        double enter = 0;
+        double exit = 1;
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) {
+                return Double.NaN;
+            }
+        } else {
+            double t1 = (minX - x0) / dx;
+            double t2 = (maxX - x0) / dx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) {
+                return Double.NaN;
+            }
+        } else {
+            double t1 = (minY - y0) / dy;
+            double t2 = (maxY - y0) / dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        return enter < exit ? enter : Double.NaN;
     }
 
     public double getX() {
         return x;
     }
 
+    public void setX(double x) {
+        this.x = x;
+        this.prevX = x;
+    }
+
     public double getY() {
         return y;
     }
@@ -62,7 +185,19 @@ public abstract class Obstacle {
         return width;
     }
 
+    public double getHeight() {
+        return height;
+    }
+
     public long getSpawnTime() {
         return spawnTime;
     }
-}
\ No newline at end of file
+
+    public Object getRenderHandle() {
+        return renderHandle;
+    }
+
+    public void setRenderHandle(Object renderHandle) {
+        this.renderHandle = renderHandle;
+    }
+}
@@ -0,0 +1,208 @@
+package com.dino;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Live obstacles of a GameWorld, indexed for collision queries.
+ * Level obstacles stand still in world coordinates and are spawned at the right
+ * edge of a camera that only moves forward, so appending them keeps the array
+ * sorted by x. A collision query binary-searches the player's column and only
+ * runs the narrow phase on obstacles that can touch the player, which makes the
+ * per-tick cost independent of the obstacles elsewhere on screen.
+ * Obstacles that move with the camera (lemons) are few and kept in a plain list.
+ * Removed obstacles go back to the pool.
+ */
+public class ObstacleField {
+    private final ObstaclePool pool;
+    // 依 x 排序的關卡障礙物，有效範圍為 [head, tail)
+    private Obstacle[] sorted = new Obstacle[64];
+    private int head = 0;
+    private int tail = 0;
+    // 跟著攝影機移動的障礙物
+    private final List<Obstacle> anchored = new ArrayList<>();
+    // 目前為止最寬的排序障礙物，用來決定搜尋的左邊界
+    private double maxWidth = 0;
+
+    public ObstacleField(ObstaclePool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Replaces the contents with copies of the other field's obstacles.
+     */
+    public void copyFrom(ObstacleField other) {
+        clear();
+        for (int i = other.head; i < other.tail; i++) {
+            add(other.sorted[i].copy());
+        }
+        for (int i = 0; i < other.anchored.size(); i++) {
+            anchored.add(other.anchored.get(i).copy());
+        }
+        maxWidth = other.maxWidth;
+    }
+
+    /**
+     * @return A hash of the platforms the player stands on, the only obstacle
+     *         state that depends on the player
+     */
+    public long contactHash() {
+        long hash = 0;
+        for (int i = head; i < tail; i++) {
+            if (sorted[i].isInContact()) {
+                hash = hash * 31 + Double.hashCode(sorted[i].getX());
+            }
+        }
+        return hash;
+    }
+
+    public void add(Obstacle obstacle) {
+        if (obstacle.movesWithCamera()) {
+            anchored.add(obstacle);
+            return;
+        }
+        if (tail == sorted.length) {
+            grow();
+        }
+        sorted[tail++] = obstacle;
+        maxWidth = Math.max(maxWidth, obstacle.getWidth());
+    }
+
+    public void clear() {
+        for (int i = head; i < tail; i++) {
+            pool.release(sorted[i]);
+        }
+        for (int i = 0; i < anchored.size(); i++) {
+            pool.release(anchored.get(i));
+        }
+        Arrays.fill(sorted, head, tail, null);
+        head = 0;
+        tail = 0;
+        anchored.clear();
+        maxWidth = 0;
+    }
+
+    public int size() {
+        return tail - head + anchored.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Advances camera-bound obstacles and drops the ones that left the screen.
+     *
+     * @param dt      The tick length in seconds
+     * @param cameraX The world x of the left edge of the screen
+     */
+    public void update(double dt, double cameraX) {
+        for (int i = anchored.size() - 1; i >= 0; i--) {
+            Obstacle obstacle = anchored.get(i);
+            obstacle.update(dt);
+            if (obstacle.isOffScreen(cameraX)) {
+                anchored.remove(i);
+                pool.release(obstacle);
+            }
+        }
+        // 排序陣列最左邊的先離開畫面
+        while (head < tail && sorted[head].isOffScreen(cameraX)) {
+            pool.release(sorted[head]);
+            sorted[head++] = null;
+        }
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+    }
+
+    /**
+     * Runs the collision checks against the obstacles that can touch the player,
+     * in spawn order, stopping at the first hit. The player is checked along
+     * its whole movement since the previous tick, which also covers the
+     * platforms it just walked off so they can release it.
+     *
+     * @param player The player, in world coordinates
+     * @return true if the player hit an obstacle
+     */
+    public boolean collide(Player player) {
+        double px = player.getX();
+        int from = lowerBound(player.getPrevX() - maxWidth);
+        for (int i = from; i < tail; i++) {
+            Obstacle obstacle = sorted[i];
+            if (obstacle.getX() > px + Player.PLAYER_WIDTH) {
+                break;
+            }
+            if ((obstacle.isInContact() || overlaps(obstacle, player)) && obstacle.getColide(player)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < anchored.size(); i++) {
+            if (anchored.get(i).getColide(player)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Draws the obstacles inside the camera window.
+     *
+     * @param adapter The drawing surface
+     * @param cameraX The interpolated world x of the left edge of the screen
+     * @param alpha   The interpolation factor in [0, 1]
+     */
+    public void render(RenderAdapter adapter, double cameraX, double alpha) {
+        int from = lowerBound(cameraX - maxWidth);
+        for (int i = from; i < tail; i++) {
+            Obstacle obstacle = sorted[i];
+            if (obstacle.getX() > cameraX + GameWorld.WIDTH) {
+                break;
+            }
+            adapter.drawObstacle(obstacle, obstacle.getRenderX(alpha) - cameraX, obstacle.getY());
+        }
+        for (int i = 0; i < anchored.size(); i++) {
+            Obstacle obstacle = anchored.get(i);
+            adapter.drawObstacle(obstacle, obstacle.getRenderX(alpha) - cameraX, obstacle.getY());
+        }
+    }
+
+    // 所有碰撞判定的聯集：玩家這個 tick 掃過的 AABB 沒有重疊時，任何障礙物都不會判定為撞到
+    private static boolean overlaps(Obstacle obstacle, Player player) {
+        double minX = player.getPrevX();
+        double maxX = player.getX();
+        double minY = Math.min(player.getPrevY(), player.getY());
+        double maxY = Math.max(player.getPrevY(), player.getY());
+        return maxX + Player.PLAYER_WIDTH >= obstacle.getX() && minX <= obstacle.getX() + obstacle.getWidth()
+                && maxY + Player.PLAYER_HEIGHT >= obstacle.getY() && minY <= obstacle.getY() + obstacle.getHeight();
+    }
+
+    // 第一個 x >= minX 的索引
+    private int lowerBound(double minX) {
+        int lo = head;
+        int hi = tail;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid].getX() < minX) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void grow() {
+        int count = tail - head;
+        // 前面空出一半以上時直接搬移，否則加倍
+        Obstacle[] target = head > sorted.length / 2 ? sorted : new Obstacle[sorted.length * 2];
+        System.arraycopy(sorted, head, target, 0, count);
+        if (target == sorted) {
+            Arrays.fill(sorted, count, tail, null);
+        }
+        sorted = target;
+        head = 0;
+        tail = count;
+    }
+}
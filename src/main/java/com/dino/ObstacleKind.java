@@ -0,0 +1,76 @@
+package com.dino;
+
+import java.util.function.Supplier;
+
+/**
+ * The obstacle types a level can contain. The type keyword of a level line is
+ * resolved to a kind once when the level is parsed; spawning then only looks
+ * up the kind's factory and pool.
+ */
+public enum ObstacleKind {
+    REGULAR("regular", RegularObstacle::new, RegularObstacle::imagePath),
+    PLATFORM("platform", PlatformObstacle::new, PlatformObstacle::imagePath),
+    LEMON("lemon", LemonObstacle::new, LemonObstacle::imagePath);
+
+    // 依 tag 查表，tag 即為 ordinal (編譯過的關卡中使用)
+    private static final ObstacleKind[] BY_TAG = values();
+
+    private final String keyword;
+    private final Factory factory;
+    private final Supplier<String> imagePath;
+
+    ObstacleKind(String keyword, Factory factory, Supplier<String> imagePath) {
+        this.keyword = keyword;
+        this.factory = factory;
+        this.imagePath = imagePath;
+    }
+
+    /**
+     * @param keyword The type column of a level line, case-insensitive
+     * @return The matching kind, or null if there is none
+     */
+    public static ObstacleKind fromKeyword(String keyword) {
+        for (ObstacleKind kind : BY_TAG) {
+            if (kind.keyword.equalsIgnoreCase(keyword)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The kind stored under the given tag, or null if there is none
+     */
+    public static ObstacleKind fromTag(byte tag) {
+        if (tag < 0 || tag >= BY_TAG.length) {
+            return null;
+        }
+        return BY_TAG[tag];
+    }
+
+    public static int count() {
+        return BY_TAG.length;
+    }
+
+    public Obstacle create(double width, double height, double yPosition) {
+        return factory.create(width, height, yPosition);
+    }
+
+    // 關卡檔案中的類型名稱
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public byte getTag() {
+        return (byte) ordinal();
+    }
+
+    public String getImagePath() {
+        return imagePath.get();
+    }
+
+    @FunctionalInterface
+    public interface Factory {
+        Obstacle create(double width, double height, double yPosition);
+    }
+}
@@ -0,0 +1,57 @@
+package com.dino;
+
+import java.util.ArrayList;
+
+/**
+ * Recycles obstacles so that spawning in the game loop does not allocate.
+ * Obstacles are acquired when a level entry spawns and released by
+ * ObstacleField once they leave the screen.
+ */
+public class ObstaclePool {
+    // 每種障礙物一個空閒列表，以 ObstacleKind.ordinal 索引
+    private final ArrayList<ArrayList<Obstacle>> free = new ArrayList<>();
+    private long created = 0;
+    private long reused = 0;
+
+    public ObstaclePool() {
+        for (int i = 0; i < ObstacleKind.count(); i++) {
+            free.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Returns an obstacle of the given kind, reset to its spawn state.
+     */
+    public Obstacle acquire(ObstacleKind kind, double width, double height, double yPosition) {
+        ArrayList<Obstacle> list = free.get(kind.ordinal());
+        if (!list.isEmpty()) {
+            reused++;
+            Obstacle obstacle = list.remove(list.size() - 1);
+            obstacle.reset(width, height, yPosition);
+            return obstacle;
+        }
+        created++;
+        return kind.create(width, height, yPosition);
+    }
+
+    public void release(Obstacle obstacle) {
+        free.get(obstacle.getKind().ordinal()).add(obstacle);
+    }
+
+    // 已建立的障礙物總數 (穩定狀態下不再增加)
+    public long getCreated() {
+        return created;
+    }
+
+    public long getReused() {
+        return reused;
+    }
+
+    public int getFreeCount() {
+        int count = 0;
+        for (ArrayList<Obstacle> list : free) {
+            count += list.size();
+        }
+        return count;
+    }
+}
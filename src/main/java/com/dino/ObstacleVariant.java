@@ -0,0 +1,49 @@
+package com.dino;
+
+import java.util.Objects;
+
+/**
+ * An obstacle kind at a given size; each variant needs its own scaled image.
+ */
+public class ObstacleVariant {
+    private final ObstacleKind kind;
+    private final double width;
+    private final double height;
+
+    public ObstacleVariant(ObstacleKind kind, double width, double height) {
+        this.kind = kind;
+        this.width = width;
+        this.height = height;
+    }
+
+    public ObstacleKind getKind() {
+        return kind;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ObstacleVariant)) {
+            return false;
+        }
+        ObstacleVariant other = (ObstacleVariant) o;
+        return Double.compare(width, other.width) == 0
+                && Double.compare(height, other.height) == 0
+                && kind == other.kind;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, width, height);
+    }
+}
@@ -0,0 +1,233 @@
+package com.dino;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-phase timings of the game loop. Each phase records into a fixed-size
+ * histogram that is updated with atomic increments only, so recording never
+ * allocates or locks and the histograms can be read (overlay, dump on exit)
+ * while the game is running.
+ */
+public class PerfMetrics {
+    private static final PerfMetrics instance = new PerfMetrics();
+
+    public enum Phase {
+        // 兩次 AnimationTimer 呼叫的間隔，卡頓時會變長
+        FRAME_INTERVAL("frame_interval"),
+        // 一次 AnimationTimer 呼叫內的工作時間
+        FRAME_WORK("frame_work"),
+        TICK("tick"),
+        SPAWN("spawn"),
+        OBSTACLE_UPDATE("obstacle_update"),
+        COLLISION("collision"),
+        BACKGROUND_RENDER("background_render"),
+        OBSTACLE_RENDER("obstacle_render"),
+        HUD_RENDER("hud_render"),
+        // 換上選單或結束畫面 (更新內容並加到場景上)
+        SCREEN_SWAP("screen_swap"),
+        // 讀取排行榜 (每次執行一次) 與壓縮排行榜，在背景執行緒上
+        SCORE_LOAD("score_load"),
+        SCORE_COMPACT("score_compact");
+
+        private final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final Histogram[] histograms = new Histogram[Phase.values().length];
+
+    private PerfMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    public static PerfMetrics getInstance() {
+        return instance;
+    }
+
+    public void record(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+    }
+
+    public Histogram get(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    public void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Writes count, mean, p50, p90, p99, p99.9 and max of every phase, in microseconds.
+     */
+    public void writeJson(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("{");
+            Phase[] phases = Phase.values();
+            for (int i = 0; i < phases.length; i++) {
+                Histogram h = get(phases[i]);
+                out.printf(Locale.ROOT, "  \"%s\": {\"count\": %d, \"mean_us\": %.2f, \"p50_us\": %.2f, \"p90_us\": %.2f, "
+                        + "\"p99_us\": %.2f, \"p999_us\": %.2f, \"max_us\": %.2f}%s%n", phases[i].getKey(),
+                        h.getCount(), h.getMean() / 1e3, h.percentile(50) / 1e3, h.percentile(90) / 1e3,
+                        h.percentile(99) / 1e3, h.percentile(99.9) / 1e3, h.getMax() / 1e3,
+                        i < phases.length - 1 ? "," : "");
+            }
+            out.println("}");
+        }
+    }
+
+    /**
+     * Writes the non-empty buckets of every phase, one row per bucket, so the
+     * whole distribution can be plotted.
+     */
+    public void writeCsv(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("phase,bucket_upper_ns,count");
+            long[] counts = new long[Histogram.BUCKETS];
+            for (Phase phase : Phase.values()) {
+                get(phase).copyCounts(counts);
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        out.printf("%s,%d,%d%n", phase.getKey(), Histogram.upperBound(i), counts[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Log-linear histogram of nanosecond durations: every power of two is split
+     * into 16 buckets, so a percentile is off by at most about 6%. Durations of
+     * a minute or more land in the last bucket.
+     */
+    public static class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        // 2^36 ns ≈ 69 秒
+        private static final int MAX_EXPONENT = 36;
+        static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        public void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            counts.incrementAndGet(bucketOf(nanos));
+            count.incrementAndGet();
+            sum.addAndGet(nanos);
+            long current;
+            while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+                // 其他執行緒同時更新了最大值，重試
+            }
+        }
+
+        public void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public double getMean() {
+            long n = count.get();
+            return n == 0 ? 0 : (double) sum.get() / n;
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * @param p The percentile in [0, 100]
+         * @return The upper bound of the bucket holding the percentile (at most
+         *         the maximum), 0 if empty
+         */
+        public long percentile(double p) {
+            long[] snapshot = new long[BUCKETS];
+            copyCounts(snapshot);
+            return Math.min(percentile(snapshot, p), max.get());
+        }
+
+        /**
+         * Copies the bucket counts, e.g. to compute percentiles over a time window
+         * from the difference of two snapshots.
+         */
+        public void copyCounts(long[] target) {
+            for (int i = 0; i < BUCKETS; i++) {
+                target[i] = counts.get(i);
+            }
+        }
+
+        /**
+         * @param counts Bucket counts as returned by copyCounts
+         * @return The upper bound of the bucket holding the percentile, 0 if empty
+         */
+        public static long percentile(long[] counts, double p) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * p / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(counts.length - 1);
+        }
+
+        static int bucketOf(long nanos) {
+            if (nanos < SUB_BUCKETS) {
+                return (int) nanos;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            if (exponent > MAX_EXPONENT) {
+                return BUCKETS - 1;
+            }
+            // 取最高位之後的 SUB_BITS 位當作子區間
+            int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        // 區間內最大的值
+        static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            long sub = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+        }
+    }
+}
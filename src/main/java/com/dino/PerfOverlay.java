@@ -0,0 +1,121 @@
+package com.dino;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+/**
+ * Toggleable panel showing frame and tick times over the last half second.
+ * The text is rebuilt only when the window rolls over, so drawing the overlay
+ * does not allocate per frame.
+ */
+public class PerfOverlay {
+    // 統計區間長度
+    private static final long WINDOW_NANOS = 500_000_000L;
+    private static final Font FONT = new Font("Monospaced", 13);
+    private static final PerfMetrics.Phase[] SHOWN = { PerfMetrics.Phase.FRAME_INTERVAL,
+            PerfMetrics.Phase.FRAME_WORK, PerfMetrics.Phase.TICK, PerfMetrics.Phase.SPAWN,
+            PerfMetrics.Phase.OBSTACLE_UPDATE, PerfMetrics.Phase.COLLISION, PerfMetrics.Phase.BACKGROUND_RENDER,
+            PerfMetrics.Phase.OBSTACLE_RENDER, PerfMetrics.Phase.HUD_RENDER };
+
+    private final PerfMetrics metrics;
+    private boolean visible = false;
+    private long windowStart = -1;
+    // 每個階段上一個區間結束時的計數，相減得到區間內的分佈
+    private final long[][] previous = new long[SHOWN.length][PerfMetrics.Histogram.BUCKETS];
+    private final long[] current = new long[PerfMetrics.Histogram.BUCKETS];
+    private final String[] lines = new String[SHOWN.length + 2];
+
+    public PerfOverlay(PerfMetrics metrics) {
+        this.metrics = metrics;
+        lines[0] = "          p50     p99     max  (ms)";
+        for (int i = 1; i < lines.length; i++) {
+            lines[i] = "";
+        }
+    }
+
+    public void toggle() {
+        visible = !visible;
+        // 重新顯示時從新的區間開始
+        windowStart = -1;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Draws the panel, refreshing the numbers once per window.
+     *
+     * @param now       The frame time from the AnimationTimer
+     * @param obstacles The number of live obstacles
+     */
+    public void render(GraphicsContext gc, long now, int obstacles) {
+        if (!visible) {
+            return;
+        }
+        if (windowStart < 0) {
+            snapshot();
+            windowStart = now;
+        } else if (now - windowStart >= WINDOW_NANOS) {
+            refresh(obstacles);
+            windowStart = now;
+        }
+
+        double lineHeight = 16;
+        double x = 10;
+        double y = 50;
+        gc.setFill(Color.rgb(0, 0, 0, 0.6));
+        gc.fillRect(x - 5, y - 13, 300, lineHeight * lines.length + 6);
+        gc.setFill(Color.LIME);
+        gc.setFont(FONT);
+        for (String line : lines) {
+            gc.fillText(line, x, y);
+            y += lineHeight;
+        }
+    }
+
+    private void snapshot() {
+        for (int i = 0; i < SHOWN.length; i++) {
+            metrics.get(SHOWN[i]).copyCounts(previous[i]);
+        }
+    }
+
+    private void refresh(int obstacles) {
+        for (int i = 0; i < SHOWN.length; i++) {
+            metrics.get(SHOWN[i]).copyCounts(current);
+            long max = 0;
+            for (int b = 0; b < current.length; b++) {
+                long delta = current[b] - previous[i][b];
+                previous[i][b] = current[b];
+                current[b] = delta;
+                if (delta > 0) {
+                    max = PerfMetrics.Histogram.upperBound(b);
+                }
+            }
+            lines[i + 1] = String.format("%-8s %7.3f %7.3f %7.3f", label(SHOWN[i]),
+                    PerfMetrics.Histogram.percentile(current, 50) / 1e6,
+                    PerfMetrics.Histogram.percentile(current, 99) / 1e6, max / 1e6);
+        }
+        lines[lines.length - 1] = "obstacles " + obstacles;
+    }
+
+    private static String label(PerfMetrics.Phase phase) {
+        switch (phase) {
+            case FRAME_INTERVAL:
+                return "frame";
+            case FRAME_WORK:
+                return "work";
+            case OBSTACLE_UPDATE:
+                return "update";
+            case BACKGROUND_RENDER:
+                return "bg";
+            case OBSTACLE_RENDER:
+                return "sprites";
+            case HUD_RENDER:
+                return "hud";
+            default:
+                return phase.getKey();
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.dino;
 
-import javafx.scene.canvas.GraphicsContext;
-
 public class PlatformObstacle extends Obstacle {
 
     private boolean prev = false;
@@ -13,23 +11,39 @@ public class PlatformObstacle extends Obstacle {
     }
 
     public PlatformObstacle(double width, double height, double yPosition) {
-        super(width, height, yPosition, isLevel2 ? "/picture/platform2.png" : "/picture/platform.png");
+        super(width, height, yPosition);
     }
 
     @Override
-    public void render(GraphicsContext gc) {
-        gc.drawImage(image, x, y);
+    public void reset(double width, double height, double yPosition) {
+        super.reset(width, height, yPosition);
+        prev = false;
+        colide = false;
+    }
+
+    public static String imagePath() {
+        return isLevel2 ? "/picture/platform2.png" : "/picture/platform.png";
     }
 
     @Override
-    public void render(GraphicsContext gc, double cameraY) {
-        gc.drawImage(image, x, y - cameraY);
+    public ObstacleKind getKind() {
+        return ObstacleKind.PLATFORM;
     }
 
     @Override
     // 如果在上面就不算撞到
     public boolean getColide(Player player) {
         colide = colideStatus(player);
+        if (!colide) {
+            // 在兩個 tick 之間穿過平台：往下時照常站上去，往上時停在撞到的位置
+            double impact = timeOfImpact(player, 0);
+            if (!Double.isNaN(impact)) {
+                colide = true;
+                if (player.getYVelocity() < 0) {
+                    player.setY(player.getPrevY() + (player.getY() - player.getPrevY()) * impact);
+                }
+            }
+        }
         if (colide) {
             if (player.getYVelocity() >= 0) {
                 player.setY(this.y - Player.PLAYER_HEIGHT);
@@ -44,6 +58,11 @@ public class PlatformObstacle extends Obstacle {
         return false;
     }
 
+    @Override
+    public boolean isInContact() {
+        return prev;
+    }
+
     public boolean colideStatus(Player player) { // 返回值：player是否站在上面
         return player.getX() + Player.PLAYER_WIDTH > this.x &&
                 player.getX() <= this.x + width &&
@@ -1,22 +1,41 @@
 package com.dino;
 
-import javafx.scene.canvas.GraphicsContext;
-
-public abstract class Player {
+public abstract class Player implements Cloneable {
     public static final int PLAYER_WIDTH = 40;
     public static final int PLAYER_HEIGHT = 40;
     
-    protected double y = MainApplication.getHEIGHT() - 50 - PLAYER_HEIGHT;
-    protected double x = 50;
+    protected double y = GameWorld.GROUND_Y - PLAYER_HEIGHT;
+    protected double prevY = y;
+    // 玩家在畫面上的固定 x
+    public static final double START_X = 50;
+
+    // 世界座標，每個 tick 跟著攝影機前進
+    protected double x = START_X;
+    // 上一個 tick 的 x，碰撞判定用來掃過這個 tick 的移動範圍
+    protected double prevX = x;
     protected double yVelocity = 0;
     protected boolean isJumping = false;
     boolean isUpKeyPressed = false;
     
-    public abstract void update();
-    public abstract void render(GraphicsContext gc);
+    // dt: 一個 tick 的秒數
+    public abstract void update(double dt);
+
+    // 複製目前的狀態 (搜尋輸入時使用)
+    public Player copy() {
+        try {
+            return (Player) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
     
     // Common methods for all player types
 
+    // 在上一個與目前的 tick 之間內插繪製位置
+    public double getRenderY(double alpha) {
+        return prevY + (y - prevY) * alpha;
+    }
+
     public void setUpKeyPressed(boolean pressed) {
         this.isUpKeyPressed = pressed;
     }
@@ -44,8 +63,24 @@ public abstract class Player {
     public double getX() {
         return x;
     }
+
+    // 每個 tick 呼叫一次，原本的 x 成為 prevX
+    public void setX(double x) {
+        this.prevX = this.x;
+        this.x = x;
+    }
+
+    public double getPrevX() {
+        return prevX;
+    }
+
+    public double getPrevY() {
+        return prevY;
+    }
     
-    // public boolean isJumping() { return isJumping; }
+    public boolean isJumping() {
+        return isJumping;
+    }
     
     public void setJumping(boolean jumping) {
         isJumping = jumping;
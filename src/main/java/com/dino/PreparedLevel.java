@@ -0,0 +1,65 @@
+package com.dino;
+
+import javafx.scene.image.Image;
+
+/**
+ * Everything a GameScene needs to start a level, already loaded and decoded
+ * by a LevelLoadTask.
+ */
+public class PreparedLevel {
+    private final String levelFile;
+    private final GameMode gameMode;
+    private final SpawnSource source;
+    private final Background background;
+    private final SpriteAtlas atlas;
+    private final Image explosionImage;
+    private final GhostTrail.Reader ghost;
+    private final long loadNanos;
+
+    public PreparedLevel(String levelFile, GameMode gameMode, SpawnSource source, Background background,
+            SpriteAtlas atlas, Image explosionImage, GhostTrail.Reader ghost, long loadNanos) {
+        this.levelFile = levelFile;
+        this.gameMode = gameMode;
+        this.source = source;
+        this.background = background;
+        this.atlas = atlas;
+        this.explosionImage = explosionImage;
+        this.ghost = ghost;
+        this.loadNanos = loadNanos;
+    }
+
+    public String getLevelFile() {
+        return levelFile;
+    }
+
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
+    public SpawnSource getSource() {
+        return source;
+    }
+
+    public Background getBackground() {
+        return background;
+    }
+
+    // 關卡所有圖片合成的材質
+    public SpriteAtlas getAtlas() {
+        return atlas;
+    }
+
+    public Image getExplosionImage() {
+        return explosionImage;
+    }
+
+    // 最佳紀錄的殘影，沒有時為 null
+    public GhostTrail.Reader getGhost() {
+        return ghost;
+    }
+
+    // 背景載入所花的時間
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+}
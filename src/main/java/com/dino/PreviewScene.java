@@ -8,12 +8,17 @@ import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
-
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Scrolls through a level without playing it. Only the obstacles around the
+ * camera window exist as objects: the level table is ordered by spawn
+ * trigger, which bounds each obstacle's world x, so the visible range is found
+ * by binary search and obstacles are taken from a pool as they scroll in and
+ * returned as they scroll out. The cost of a frame does not depend on the
+ * size of the level.
+ */
 public class PreviewScene extends Pane {
 
     private static final int GROUND_Y = MainApplication.getHEIGHT() - 50;
@@ -21,9 +26,22 @@ public class PreviewScene extends Pane {
     private static final int DINO_HEIGHT = 60;
     private static final int DINO_START_X = 50;
     public static final double CAMERA_SPEED = 20;
-
-    private List<Obstacle> obstacles = new ArrayList<>();
+    private static final Font LABEL_FONT = new Font("Arial", 12);
+    private static final Font INFO_FONT = new Font("Arial", 16);
+
+    private LevelTable level = LevelData.empty();
+    // 最寬的障礙物，決定二分搜尋的左邊界
+    private double maxWidth = 0;
+    // 目前畫面內的障礙物，對應關卡索引 [liveFrom, liveTo)
+    private final ArrayDeque<Obstacle> live = new ArrayDeque<>();
+    private int liveFrom = 0;
+    private int liveTo = 0;
+    private final ObstaclePool pool = new ObstaclePool();
+    // 熱重載：關卡檔案修改時換成新的關卡，攝影機位置不變
+    private final Consumer<LevelData> levelReloader = this::setLevel;
     private GraphicsContext gc;
+    // 只用來繪製障礙物，背景與地面由預覽器自己畫
+    private CanvasRenderer renderer;
     private double cameraX = 0;
     private AnimationTimer previewTimer;
     private MainApplication app;
@@ -35,8 +53,13 @@ public class PreviewScene extends Pane {
         Canvas canvas = new Canvas(MainApplication.getWIDTH(), MainApplication.getHEIGHT());
         gc = canvas.getGraphicsContext2D();
         getChildren().add(canvas);
+        renderer = new CanvasRenderer(gc, null);
 
         loadLevel("/level1.txt");
+        LevelWatcher watcher = LevelWatcher.getInstance();
+        if (watcher != null) {
+            watcher.watch("/level1.txt", levelReloader);
+        }
     }
 
     public void startPreviewLoop() {
@@ -61,6 +84,10 @@ public class PreviewScene extends Pane {
         } else if (code == KeyCode.RIGHT) {
             moveCamera(CAMERA_SPEED);
         } else if (code == KeyCode.M) {
+            LevelWatcher watcher = LevelWatcher.getInstance();
+            if (watcher != null) {
+                watcher.unwatch(levelReloader);
+            }
             stopPreviewLoop();
             app.showStartMenu();
         }
@@ -73,55 +100,21 @@ public class PreviewScene extends Pane {
     }
 
     private void loadLevel(String levelFilePath) {
-        obstacles.clear();
-
-        List<LevelObstacleData> tempLevelSequence = new ArrayList<>();
-        try (InputStream is = getClass().getResourceAsStream(levelFilePath);
-                BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
-
-            String line, songpath;
-            // 載入音樂
-            songpath = reader.readLine();
-            BgmPlayer.init(songpath);
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().startsWith("#") || line.trim().isEmpty()) {
-                    continue;
-                }
-
-                String[] parts = line.split(",");
-                if (parts.length == 5) {
-                    try {
-                        double spawnTriggerX = Double.parseDouble(parts[0].trim());
-                        double width = Double.parseDouble(parts[1].trim());
-                        double height = Double.parseDouble(parts[2].trim());
-                        double yPosition = Double.parseDouble(parts[3].trim());
-                        String type = parts[4].trim().toLowerCase();
-
-                        if (!type.equals("regular") && !type.equals("platform")) {
-                            System.err.println("關卡檔案中未知障礙物類型 '" + type + "'，行：" + line + "。預設為 'regular'。");
-                            type = "regular";
-                        }
-                        tempLevelSequence.add(new LevelObstacleData(spawnTriggerX, width, height, yPosition, type));
-                    } catch (NumberFormatException e) {
-                        System.err.println("關卡檔案中數字格式無效，行：" + line + " - " + e.getMessage());
-                    }
-                } else {
-                    System.err
-                            .println("關卡檔案中格式無效，行：" + line + "。預期格式為 'spawn_trigger_x,width,height,y_position,type'。");
+        setLevel(LevelData.empty());
+
+        try {
+            // 與遊戲使用同一個載入器，支援的障礙物類型也相同
+            LevelTable level = LevelLoader.load(levelFilePath);
+            setLevel(level);
+            if (level instanceof LevelData) {
+                for (LevelDiagnostic diagnostic : ((LevelData) level).getDiagnostics()) {
+                    System.err.println(levelFilePath + " " + diagnostic);
                 }
             }
+            // 載入音樂
+            BgmPlayer.init(level.getSongPath());
 
-            for (LevelObstacleData data : tempLevelSequence) {
-                Obstacle newObstacle;
-                if (data.type.equals("platform")) {
-                    newObstacle = new PlatformObstacle(data.width, data.height, data.yPosition);
-                } else {
-                    newObstacle = new RegularObstacle(data.width, data.height, data.yPosition);
-                }
-                obstacles.add(newObstacle);
-            }
-
-            if (obstacles.isEmpty()) {
+            if (level.size() == 0) {
                 System.out.println("未載入關卡資料。預覽器將為空。");
             }
 
@@ -131,6 +124,16 @@ public class PreviewScene extends Pane {
         }
     }
 
+    // 換成新的關卡，畫面內的障礙物在下一個畫面重新取得
+    private void setLevel(LevelTable level) {
+        releaseAll();
+        this.level = level;
+        maxWidth = 0;
+        for (int i = 0; i < level.size(); i++) {
+            maxWidth = Math.max(maxWidth, level.width(i));
+        }
+    }
+
     private void renderPreview() {
         gc.setFill(Color.LIGHTGRAY);
         gc.fillRect(0, 0, MainApplication.getWIDTH(), MainApplication.getHEIGHT());
@@ -139,19 +142,81 @@ public class PreviewScene extends Pane {
         gc.fillRect(0 - cameraX, GROUND_Y, MainApplication.getWIDTH() + cameraX * 2,
                 MainApplication.getHEIGHT() - GROUND_Y);
 
-        for (Obstacle obstacle : obstacles) {
-            obstacle.render(gc, cameraX);
+        renderer.setCameraX(cameraX);
+        updateVisible();
+        for (Obstacle obstacle : live) {
+            if (obstacle.getX() + obstacle.getWidth() >= cameraX
+                    && obstacle.getX() <= cameraX + MainApplication.getWIDTH()) {
+                renderer.drawObstacle(obstacle, obstacle.getX(), obstacle.getY());
+            }
         }
 
         gc.setFill(Color.GREEN);
         gc.fillRect(DINO_START_X - cameraX, GROUND_Y - DINO_HEIGHT, DINO_WIDTH, DINO_HEIGHT);
         gc.setFill(Color.BLACK);
-        gc.setFont(new Font("Arial", 12));
+        gc.setFont(LABEL_FONT);
         gc.fillText("Dino 起始點", DINO_START_X - cameraX, GROUND_Y - DINO_HEIGHT - 5);
 
         gc.setFill(Color.BLACK);
-        gc.setFont(new Font("Arial", 16));
+        gc.setFont(INFO_FONT);
         gc.fillText(String.format("攝影機 X: %.0f", cameraX), 10, 30);
         gc.fillText("按 M 返回選單", 10, 50);
     }
+
+    // 第一個 spawnTriggerX >= minTrigger 的關卡索引
+    private int lowerBound(double minTrigger) {
+        int lo = 0;
+        int hi = level.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (level.spawnTriggerX(mid) < minTrigger) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // 讓 live 包含畫面內的障礙物：離開的還給物件池，進入的從物件池取得
+    private void updateVisible() {
+        // 障礙物生成於攝影機到達 spawnTriggerX 時的畫面內 (一般在右緣，檸檬蓋住整個畫面)，
+        // 所以世界 x 介於 spawnTriggerX 與 spawnTriggerX + WIDTH 之間
+        int from = lowerBound(cameraX - MainApplication.getWIDTH() - maxWidth);
+        int to = lowerBound(Math.nextUp(cameraX + MainApplication.getWIDTH()));
+        while (liveFrom < from && !live.isEmpty()) {
+            pool.release(live.pollFirst());
+            liveFrom++;
+        }
+        while (liveTo > to && !live.isEmpty()) {
+            pool.release(live.pollLast());
+            liveTo--;
+        }
+        if (live.isEmpty()) {
+            liveFrom = from;
+            liveTo = from;
+        }
+        while (liveFrom > from) {
+            live.addFirst(create(--liveFrom));
+        }
+        while (liveTo < to) {
+            live.addLast(create(liveTo++));
+        }
+    }
+
+    private Obstacle create(int index) {
+        Obstacle obstacle = pool.acquire(level.kind(index), level.width(index), level.height(index),
+                level.yPosition(index));
+        // 物件剛取得時是相對於畫面的位置，移到世界座標
+        obstacle.placeInWorld(level.spawnTriggerX(index));
+        return obstacle;
+    }
+
+    private void releaseAll() {
+        while (!live.isEmpty()) {
+            pool.release(live.pollFirst());
+        }
+        liveFrom = 0;
+        liveTo = 0;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,330 @@
+package com.dino;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Endless level generated from a seed, one segment at a time just ahead of the
+ * spawn cursor, so memory stays bounded however long the run lasts. The same
+ * seed always yields the same level (replays and ghosts work as for files),
+ * and every segment is built to be passable from where the previous one
+ * leaves the player:
+ * <ul>
+ * <li>DINO: single blocks to jump over and bars to run under. A block is never
+ * higher or wider than a jump can clear, and consecutive hazards are further
+ * apart than a jump is long, so the player always lands in between.</li>
+ * <li>WAVE: columns with a gap. The gap fits the player while zig-zagging,
+ * and the gap moves between columns by less than the wave can climb or
+ * descend in the free space between them.</li>
+ * </ul>
+ * Difficulty (spacing, sizes, gap height) ramps up with the distance.
+ * Sizes are quantized so the images to decode are known up front.
+ *
+ * Levels are named {@code endless-dino-<seed>} or {@code endless-wave-<seed>}
+ * wherever a level path is accepted.
+ */
+public class ProceduralSpawnSource implements SpawnSource {
+    public static final String PREFIX = "endless-";
+    // 距離到達這裡時難度最高 (約 100 秒)
+    static final double RAMP_DISTANCE = 60_000;
+    // 第一個障礙物前的緩衝距離
+    static final double START_TRIGGER = 600;
+    static final int SIZE_STEP = 10;
+
+    // 恐龍模式：跳躍 0.4 秒 (240 px)，最高 108 px；方塊不超過 OBSTACLE_MAX 的尺寸，最寬 80
+    private static final int BLOCK_MAX_WIDTH = 80;
+    // 兩個障礙物之間的空隙 (大於跳躍距離 240 px)
+    private static final double DINO_GAP_EASY = 700;
+    static final double DINO_GAP_HARD = 300;
+    // 要從下方通過的橫桿：底部離地面上的玩家 30~70 px，跳起來就會撞到
+    private static final int BAR_HEIGHT = 30;
+    private static final int[] BAR_WIDTHS = { 40, 80, 120 };
+    private static final int BAR_MIN_CLEARANCE = 30;
+    private static final int BAR_MAX_CLEARANCE = 70;
+
+    // 波浪模式：柱子的缺口高度與柱子之間的距離
+    static final int COLUMN_WIDTH = 40;
+    private static final int GAP_EASY = 220;
+    private static final int GAP_HARD = 90;
+    private static final double COLUMN_SPACING_EASY = 500;
+    static final double COLUMN_SPACING_HARD = 260;
+    // 缺口位置與高度的量化單位
+    static final int GAP_STEP = 10;
+    // 轉向與碰撞判定包含邊界的安全距離
+    static final double MARGIN = 30;
+
+    private final GameMode mode;
+    private final long seed;
+    private final String songPath;
+
+    // SplitMix64 的狀態，可以直接複製 (fork)
+    private long random;
+    private double cursorX;
+    // 波浪模式上一個缺口的中心
+    private double gapCenter;
+    // 目前產生的一段障礙物，讀完再產生下一段
+    private final double[] triggers = new double[2];
+    private final double[] widths = new double[2];
+    private final double[] heights = new double[2];
+    private final double[] ys = new double[2];
+    private int pending = 0;
+    private int next = 0;
+
+    public ProceduralSpawnSource(GameMode mode, long seed, String songPath) {
+        this.mode = mode;
+        this.seed = seed;
+        this.songPath = songPath;
+        rewind();
+    }
+
+    /**
+     * @return true if the level path names an endless level
+     */
+    public static boolean isEndless(String levelFilePath) {
+        return levelFilePath.startsWith(PREFIX);
+    }
+
+    /**
+     * @param mode The game mode to generate for
+     * @return The level path of an endless level
+     */
+    public static String levelName(GameMode mode, long seed) {
+        return PREFIX + mode.name().toLowerCase() + "-" + seed;
+    }
+
+    /**
+     * @param levelFilePath A level path as returned by levelName
+     * @throws IllegalArgumentException if the path is not an endless level
+     */
+    public static ProceduralSpawnSource open(String levelFilePath) {
+        String[] parts = levelFilePath.substring(PREFIX.length()).split("-", 2);
+        if (!isEndless(levelFilePath) || parts.length != 2) {
+            throw new IllegalArgumentException("不是無盡模式的關卡：" + levelFilePath);
+        }
+        GameMode mode = GameMode.valueOf(parts[0].toUpperCase());
+        long seed;
+        try {
+            seed = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("無盡模式的種子不是數字：" + levelFilePath, e);
+        }
+        String song = mode == GameMode.WAVE ? "/music/lemon.MP3" : "/music/Unity.MP3";
+        return new ProceduralSpawnSource(mode, seed, song);
+    }
+
+    public GameMode getMode() {
+        return mode;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String getSongPath() {
+        return songPath;
+    }
+
+    // 沒有盡頭
+    @Override
+    public int size() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean isEndless() {
+        return true;
+    }
+
+    @Override
+    public double getLastSpawnTriggerX() {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public Set<ObstacleVariant> variants() {
+        Set<ObstacleVariant> variants = new LinkedHashSet<>();
+        if (mode == GameMode.DINO) {
+            for (int w = Obstacle.OBSTACLE_MIN_WIDTH; w <= BLOCK_MAX_WIDTH; w += SIZE_STEP) {
+                for (int h = Obstacle.OBSTACLE_MIN_HEIGHT; h <= Obstacle.OBSTACLE_MAX_HEIGHT; h += SIZE_STEP) {
+                    variants.add(new ObstacleVariant(ObstacleKind.REGULAR, w, h));
+                }
+            }
+            for (int w : BAR_WIDTHS) {
+                variants.add(new ObstacleVariant(ObstacleKind.REGULAR, w, BAR_HEIGHT));
+            }
+        } else {
+            for (int h = GAP_STEP; h <= GameWorld.GROUND_Y; h += GAP_STEP) {
+                variants.add(new ObstacleVariant(ObstacleKind.REGULAR, COLUMN_WIDTH, h));
+            }
+        }
+        return variants;
+    }
+
+    @Override
+    public List<LevelDiagnostic> getDiagnostics() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isExhausted() {
+        return false;
+    }
+
+    @Override
+    public boolean isReady() {
+        if (next == pending) {
+            generate();
+        }
+        return true;
+    }
+
+    @Override
+    public double spawnTriggerX() {
+        isReady();
+        return triggers[next];
+    }
+
+    @Override
+    public double width() {
+        isReady();
+        return widths[next];
+    }
+
+    @Override
+    public double height() {
+        isReady();
+        return heights[next];
+    }
+
+    @Override
+    public double yPosition() {
+        isReady();
+        return ys[next];
+    }
+
+    @Override
+    public ObstacleKind kind() {
+        return ObstacleKind.REGULAR;
+    }
+
+    @Override
+    public void advance() {
+        isReady();
+        next++;
+    }
+
+    @Override
+    public void rewind() {
+        random = seed;
+        cursorX = START_TRIGGER;
+        gapCenter = GameWorld.GROUND_Y - Player.PLAYER_HEIGHT / 2.0;
+        pending = 0;
+        next = 0;
+    }
+
+    @Override
+    public SpawnSource fork() {
+        ProceduralSpawnSource copy = new ProceduralSpawnSource(mode, seed, songPath);
+        copy.random = random;
+        copy.cursorX = cursorX;
+        copy.gapCenter = gapCenter;
+        System.arraycopy(triggers, 0, copy.triggers, 0, pending);
+        System.arraycopy(widths, 0, copy.widths, 0, pending);
+        System.arraycopy(heights, 0, copy.heights, 0, pending);
+        System.arraycopy(ys, 0, copy.ys, 0, pending);
+        copy.pending = pending;
+        copy.next = next;
+        return copy;
+    }
+
+    // 產生下一段障礙物，cursorX 移到這一段之後
+    private void generate() {
+        pending = 0;
+        next = 0;
+        double difficulty = Math.min(1, cursorX / RAMP_DISTANCE);
+        if (mode == GameMode.DINO) {
+            generateDino(difficulty);
+        } else {
+            generateWave(difficulty);
+        }
+    }
+
+    private void generateDino(double difficulty) {
+        double width;
+        // 難度越高越常出現橫桿
+        if (nextDouble() < 0.15 + 0.2 * difficulty) {
+            width = BAR_WIDTHS[nextInt(BAR_WIDTHS.length)];
+            int clearance = BAR_MIN_CLEARANCE + nextInt((BAR_MAX_CLEARANCE - BAR_MIN_CLEARANCE) / SIZE_STEP + 1) * SIZE_STEP;
+            double bottom = GameWorld.GROUND_Y - Player.PLAYER_HEIGHT - clearance;
+            emit(cursorX, width, BAR_HEIGHT, bottom - BAR_HEIGHT);
+        } else {
+            int maxWidth = (int) lerp(Obstacle.OBSTACLE_MAX_WIDTH, BLOCK_MAX_WIDTH, difficulty);
+            width = quantized(Obstacle.OBSTACLE_MIN_WIDTH, maxWidth);
+            // 寬的方塊需要比較早起跳，高度限制在跳得過的範圍
+            int maxHeight = width > 60 ? 50 : Obstacle.OBSTACLE_MAX_HEIGHT;
+            double height = quantized(Obstacle.OBSTACLE_MIN_HEIGHT, maxHeight);
+            emit(cursorX, width, height, GameWorld.GROUND_Y - height);
+        }
+        double gap = lerp(DINO_GAP_EASY, DINO_GAP_HARD, difficulty);
+        cursorX += width + gap * (1 + 0.5 * nextDouble());
+    }
+
+    private void generateWave(double difficulty) {
+        double spacing = lerp(COLUMN_SPACING_EASY, COLUMN_SPACING_HARD, difficulty) * (1 + 0.3 * nextDouble());
+        int gap = (int) (lerp(GAP_EASY, GAP_HARD, difficulty) / GAP_STEP) * GAP_STEP;
+        // 柱子之間的空間內，波浪以 45 度 (與前進速度相同) 上下移動
+        double reach = Math.max(0, spacing - COLUMN_WIDTH - Player.PLAYER_WIDTH - MARGIN);
+        double min = Math.max(gap / 2.0, gapCenter - reach);
+        double max = Math.min(GameWorld.GROUND_Y - gap / 2.0, gapCenter + reach);
+        double center = min + nextDouble() * (max - min);
+        double top = Math.floor((center - gap / 2.0) / GAP_STEP) * GAP_STEP;
+        top = Math.max(0, Math.min(GameWorld.GROUND_Y - gap, top));
+        gapCenter = top + gap / 2.0;
+
+        double trigger = cursorX;
+        if (top > 0) {
+            emit(trigger, COLUMN_WIDTH, top, 0);
+        }
+        double bottom = top + gap;
+        if (bottom < GameWorld.GROUND_Y) {
+            emit(trigger, COLUMN_WIDTH, GameWorld.GROUND_Y - bottom, bottom);
+        }
+        cursorX += spacing;
+    }
+
+    private void emit(double trigger, double width, double height, double y) {
+        triggers[pending] = trigger;
+        widths[pending] = width;
+        heights[pending] = height;
+        ys[pending] = y;
+        pending++;
+    }
+
+    private static double lerp(double from, double to, double t) {
+        return from + (to - from) * t;
+    }
+
+    // [min, max] 之間 SIZE_STEP 的倍數
+    private int quantized(int min, int max) {
+        return min + nextInt((max - min) / SIZE_STEP + 1) * SIZE_STEP;
+    }
+
+    // SplitMix64
+    private long nextLong() {
+        long z = (random += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    private int nextInt(int bound) {
+        return (int) ((nextLong() >>> 33) % bound);
+    }
+}
@@ -1,7 +1,5 @@
 package com.dino;
 
-import javafx.scene.canvas.GraphicsContext;
-
 public class RegularObstacle extends Obstacle {
 
     private static boolean isLevel2 = false;
@@ -11,16 +9,15 @@ public class RegularObstacle extends Obstacle {
     }
 
     public RegularObstacle(double width, double height, double yPosition) {
-        super(width, height, yPosition, isLevel2 ? "/picture/regular2.jpg" : "/picture/regular.jpg");
+        super(width, height, yPosition);
     }
 
-    @Override
-    public void render(GraphicsContext gc) {
-        gc.drawImage(image, x, y);
+    public static String imagePath() {
+        return isLevel2 ? "/picture/regular2.jpg" : "/picture/regular.jpg";
     }
 
     @Override
-    public void render(GraphicsContext gc, double cameraY) {
-        gc.drawImage(image, x, y - cameraY);
+    public ObstacleKind getKind() {
+        return ObstacleKind.REGULAR;
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.dino;
+
+/**
+ * Drawing surface the simulation renders through.
+ * Keeps GameWorld and the obstacles free of any JavaFX dependency; the
+ * JavaFX implementation is CanvasRenderer.
+ */
+public interface RenderAdapter {
+
+    /**
+     * Starts a frame and draws the scenery.
+     *
+     * @param gameWorldDistance The interpolated distance traveled in the game world
+     */
+    void beginFrame(double gameWorldDistance);
+
+    void drawPlayer(Player player, double x, double y);
+
+    void drawObstacle(Obstacle obstacle, double x, double y);
+
+    /**
+     * Draws the ghost of a previous run, translucent so it reads as a ghost.
+     *
+     * @param yVelocity The ghost's vertical speed, to pick the wave sprite
+     */
+    void drawGhost(GameMode mode, double x, double y, double yVelocity);
+
+    /**
+     * @param score                The current score
+     * @param showProgress         Whether a level is loaded and progress is meaningful
+     * @param completionPercentage The level completion in [0, 100]
+     */
+    void drawHud(long score, boolean showProgress, double completionPercentage);
+
+    void endFrame();
+}
@@ -0,0 +1,311 @@
+package com.dino;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A recorded run: the level, the tick rate and every input, each stamped with
+ * the number of ticks completed when it happened. Feeding the inputs back at
+ * the same ticks reproduces the run exactly, since GameWorld is deterministic.
+ *
+ * File layout (varints are unsigned LEB128):
+ * <pre>
+ * int     magic "DRPL"
+ * byte    version
+ * varint  tick rate
+ * varint  level path length, followed by the UTF-8 bytes
+ * varint  final tick count
+ * varint  final score
+ * varint  input count
+ * varint[count] (tick delta &lt;&lt; 1) | pressed
+ * </pre>
+ */
+public class Replay {
+    public static final String EXTENSION = ".drpl";
+    private static final int MAGIC = 0x4452504C; // "DRPL"
+    // 2: 障礙物生成於自己的 spawnTriggerX (不再對齊 tick)，舊的重播會跑出不同的結果
+    private static final byte VERSION = 2;
+    // 讀取外部檔案時的上限，損毀或惡意的檔案不會造成過大的配置
+    static final int MAX_LEVEL_PATH_BYTES = 4096;
+    static final int MAX_TICK_RATE = 1000;
+    // 存檔名稱中的時間部分，見 fileName
+    private static final Pattern TIMESTAMP = Pattern.compile("\\d{8}-\\d{6}" + Pattern.quote(EXTENSION));
+
+    private final String levelFile;
+    private final int tickRate;
+    private final long finalTick;
+    private final long score;
+    private final long[] ticks;
+    private final boolean[] pressed;
+
+    public Replay(String levelFile, int tickRate, long finalTick, long score, long[] ticks, boolean[] pressed) {
+        if (ticks.length != pressed.length) {
+            throw new IllegalArgumentException("ticks and pressed differ in length");
+        }
+        this.levelFile = levelFile;
+        this.tickRate = tickRate;
+        this.finalTick = finalTick;
+        this.score = score;
+        this.ticks = ticks;
+        this.pressed = pressed;
+    }
+
+    public static Replay read(Path file) throws IOException {
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(is);
+        }
+    }
+
+    public static Replay read(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是重播檔案");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("不支援的重播檔案版本：" + version);
+        }
+        long tickRate = readVarLong(in);
+        if (tickRate <= 0 || tickRate > MAX_TICK_RATE) {
+            throw new IOException("重播檔案已損毀：tick 頻率 " + tickRate);
+        }
+        long levelLength = readVarLong(in);
+        if (levelLength < 0 || levelLength > MAX_LEVEL_PATH_BYTES) {
+            throw new IOException("重播檔案已損毀：關卡路徑長度 " + levelLength);
+        }
+        byte[] level = new byte[(int) levelLength];
+        in.readFully(level);
+        long finalTick = readVarLong(in);
+        if (finalTick < 0) {
+            throw new IOException("重播檔案已損毀：tick 數 " + finalTick);
+        }
+        long score = readVarLong(in);
+        long count = readVarLong(in);
+        // 每個 tick 最多一次按下與一次放開
+        if (count < 0 || count > 2 * (finalTick + 1)) {
+            throw new IOException("重播檔案已損毀：輸入數量 " + count);
+        }
+        // 不依檔案宣告的數量預先配置，陣列只隨實際讀到的輸入成長
+        Recorder inputs = new Recorder();
+        long tick = 0;
+        for (long i = 0; i < count; i++) {
+            long packed = readVarLong(in);
+            tick += packed >>> 1;
+            if (tick < 0 || tick > finalTick) {
+                throw new IOException("重播檔案已損毀：輸入的 tick " + tick);
+            }
+            inputs.record(tick, (packed & 1) != 0);
+        }
+        return inputs.finish(new String(level, StandardCharsets.UTF_8), (int) tickRate, finalTick, score);
+    }
+
+    /**
+     * @return The file name a run of the level is saved under; names sort by time
+     */
+    public static String fileName(String levelName, String timestamp) {
+        return levelName + "-" + timestamp + EXTENSION;
+    }
+
+    /**
+     * Deletes old replays of a level so the directory does not grow with every
+     * run: the newest keep files are kept, plus the one with the best score.
+     * Files that cannot be read are left alone.
+     *
+     * @return The number of files deleted
+     */
+    public static int prune(Path dir, String levelName, int keep) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        String prefix = levelName + "-";
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && TIMESTAMP.matcher(name.substring(prefix.length())).matches()) {
+                    runs.add(file);
+                }
+            });
+        }
+        if (runs.size() <= keep) {
+            return 0;
+        }
+        // 由新到舊
+        runs.sort(Collections.reverseOrder());
+        // 最佳紀錄與讀不了的檔案都不刪除
+        List<Path> old = new ArrayList<>(runs.subList(Math.max(keep, 0), runs.size()));
+        Path best = null;
+        long bestScore = -1;
+        for (Path file : runs) {
+            try {
+                long score = read(file).getScore();
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = file;
+                }
+            } catch (IOException e) {
+                old.remove(file);
+            }
+        }
+        old.remove(best);
+        int deleted = 0;
+        for (Path file : old) {
+            if (Files.deleteIfExists(file)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    public void write(Path file) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(os);
+        }
+    }
+
+    public void write(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarLong(out, tickRate);
+        byte[] level = levelFile.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, level.length);
+        out.write(level);
+        writeVarLong(out, finalTick);
+        writeVarLong(out, score);
+        writeVarLong(out, ticks.length);
+        long previous = 0;
+        for (int i = 0; i < ticks.length; i++) {
+            // 相鄰輸入的 tick 差距通常很小，大多只需要 1 byte
+            writeVarLong(out, (ticks[i] - previous) << 1 | (pressed[i] ? 1 : 0));
+            previous = ticks[i];
+        }
+        out.flush();
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("重播檔案提早結束");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("重播檔案已損毀：數字過長");
+    }
+
+    /**
+     * Runs the replay on the given world, which must have the replay's level
+     * loaded, until the player dies, the level ends or the recorded tick
+     * count is reached.
+     */
+    public void runOn(GameWorld world) {
+        world.reset();
+        Playback playback = new Playback();
+        double dt = 1.0 / tickRate;
+        while (!world.isDying() && !world.isLevelComplete() && world.getTickCount() < finalTick) {
+            playback.apply(world);
+            world.tick(dt);
+        }
+    }
+
+    public String getLevelFile() {
+        return levelFile;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public long getFinalTick() {
+        return finalTick;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public int getInputCount() {
+        return ticks.length;
+    }
+
+    /**
+     * Feeds the recorded inputs to a world tick by tick.
+     */
+    public class Playback {
+        private int next = 0;
+
+        /**
+         * Applies the inputs recorded after the ticks the world has completed.
+         * Call before every tick.
+         */
+        public void apply(GameWorld world) {
+            long tick = world.getTickCount();
+            while (next < ticks.length && ticks[next] <= tick) {
+                if (ticks[next] == tick) {
+                    world.setUpKeyPressed(pressed[next]);
+                }
+                next++;
+            }
+        }
+
+        public boolean isFinished() {
+            return next >= ticks.length;
+        }
+    }
+
+    /**
+     * Collects inputs during a run.
+     */
+    public static class Recorder {
+        private long[] ticks = new long[64];
+        private boolean[] pressed = new boolean[64];
+        private int count = 0;
+
+        /**
+         * @param tick The number of ticks the world has completed when the input happens
+         */
+        public void record(long tick, boolean isPressed) {
+            if (count == ticks.length) {
+                ticks = Arrays.copyOf(ticks, count * 2);
+                pressed = Arrays.copyOf(pressed, count * 2);
+            }
+            ticks[count] = tick;
+            pressed[count] = isPressed;
+            count++;
+        }
+
+        public void clear() {
+            count = 0;
+        }
+
+        public Replay finish(String levelFile, int tickRate, long finalTick, long score) {
+            return new Replay(levelFile, tickRate, finalTick, score, Arrays.copyOf(ticks, count),
+                    Arrays.copyOf(pressed, count));
+        }
+    }
+}
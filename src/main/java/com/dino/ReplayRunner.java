@@ -0,0 +1,47 @@
+package com.dino;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Plays a replay file headlessly as fast as possible and checks that it ends
+ * on the recorded tick with the recorded score.
+ *
+ * Usage: ReplayRunner <replay.drpl> [level] [runs]
+ * The level defaults to the one stored in the replay.
+ */
+public class ReplayRunner {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("用法: ReplayRunner <重播檔> [關卡檔案] [執行次數]");
+            System.exit(2);
+        }
+        Replay replay = Replay.read(Paths.get(args[0]));
+        String levelFile = args.length > 1 ? args[1] : replay.getLevelFile();
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        GameWorld world = new GameWorld(GameMode.forLevel(levelFile));
+        world.loadLevel(LevelLoader.openSource(levelFile));
+
+        long totalTicks = 0;
+        long start = System.nanoTime();
+        for (int run = 0; run < runs; run++) {
+            replay.runOn(world);
+            totalTicks += world.getTickCount();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        String outcome = world.isLevelComplete() ? "完成" : world.isDying() ? "死亡" : "中止";
+        System.out.printf("關卡: %s, %d Hz, 輸入: %d%n", levelFile, replay.getTickRate(), replay.getInputCount());
+        System.out.printf("結果: %s, tick: %d (紀錄 %d), 分數: %d (紀錄 %d)%n", outcome, world.getTickCount(),
+                replay.getFinalTick(), world.getScore(), replay.getScore());
+        System.out.printf("%d 次共 %d tick，耗時 %.2f ms (%.0f tick/ms)%n", runs, totalTicks, elapsed / 1e6,
+                totalTicks / Math.max(elapsed / 1e6, 1e-3));
+        if (world.getTickCount() != replay.getFinalTick() || world.getScore() != replay.getScore()) {
+            System.out.println("驗證失敗：重播結果與紀錄不符");
+            System.exit(1);
+        }
+        System.out.println("驗證通過");
+    }
+}
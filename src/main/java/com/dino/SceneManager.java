@@ -0,0 +1,125 @@
+package com.dino;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Keeps the FXML screens loaded. Each screen is parsed once, either ahead of
+ * time on a background thread (nodes that are not in a live scene may be
+ * built on any thread) or on first use, and from then on the same root and
+ * controller are handed out: showing a screen only updates its labels and
+ * swaps the root in, instead of parsing FXML on the FX thread at the moment
+ * it is needed. The main menu also keeps its Scene.
+ *
+ * Load times are printed as screens are loaded; the time to swap a screen in
+ * is recorded as PerfMetrics.Phase.SCREEN_SWAP.
+ */
+public class SceneManager {
+    private static SceneManager instance; // Singleton 實例
+
+    public enum Screen {
+        MAIN_MENU("/MainMenu.fxml"),
+        GAME_OVER("/GameOver.fxml"),
+        LEVEL_COMPLETE("/LevelComplete.fxml");
+
+        private final String path;
+
+        Screen(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    // 已載入的畫面
+    private static final class Loaded {
+        final Parent root;
+        final Object controller;
+
+        Loaded(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+
+    private final Map<Screen, Loaded> screens = new EnumMap<>(Screen.class);
+    private Scene menuScene;
+
+    private SceneManager() {
+    }
+
+    public static synchronized SceneManager getInstance() {
+        if (instance == null) {
+            instance = new SceneManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the screens that are not loaded yet. Can be called from any thread;
+     * failures are printed and retried on first use.
+     */
+    public void preload(Screen... toLoad) {
+        for (Screen screen : toLoad) {
+            try {
+                load(screen);
+            } catch (IOException e) {
+                System.err.println("預先載入畫面失敗：" + screen.getPath() + " - " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return The root of the screen, loading it if needed. The root is shared:
+     *         adding it to a parent removes it from the previous one.
+     */
+    public Parent getRoot(Screen screen) throws IOException {
+        return load(screen).root;
+    }
+
+    /**
+     * @return The controller of the screen, loading it if needed
+     */
+    @SuppressWarnings("unchecked")
+    public <C> C getController(Screen screen) throws IOException {
+        return (C) load(screen).controller;
+    }
+
+    /**
+     * @return The main menu scene, created once and connected to the application
+     */
+    public synchronized Scene getMenuScene(MainApplication app) throws IOException {
+        if (menuScene == null) {
+            Loaded menu = load(Screen.MAIN_MENU);
+            ((MainMenuController) menu.controller).setMainApp(app);
+            menuScene = new Scene(menu.root, MainApplication.getWIDTH(), MainApplication.getHEIGHT());
+        }
+        return menuScene;
+    }
+
+    // 記錄一次畫面切換 (更新內容並換上畫面) 的耗時
+    public void recordSwap(long startNanos) {
+        PerfMetrics.getInstance().record(PerfMetrics.Phase.SCREEN_SWAP, System.nanoTime() - startNanos);
+    }
+
+    private synchronized Loaded load(Screen screen) throws IOException {
+        Loaded loaded = screens.get(screen);
+        if (loaded == null) {
+            long start = System.nanoTime();
+            FXMLLoader loader = new FXMLLoader(getClass().getResource(screen.getPath()));
+            Parent root = loader.load();
+            loaded = new Loaded(root, loader.getController());
+            screens.put(screen, loaded);
+            System.out.printf("畫面 %s 載入耗時 %.1f ms (%s)%n", screen.getPath(), (System.nanoTime() - start) / 1e6,
+                    Thread.currentThread().getName());
+        }
+        return loaded;
+    }
+}
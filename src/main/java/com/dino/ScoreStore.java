@@ -0,0 +1,397 @@
+package com.dino;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Best scores of every level (endless levels per seed), kept in an
+ * append-only log under -Ddino.scoreDir. Each run appends one checksummed
+ * record and forces it to disk; a record torn by a crash or power loss fails
+ * its checksum and is cut off on the next start. Only the top TOP_N of each
+ * level are indexed in memory, and once most records in the log are no
+ * longer in the top the log is rewritten with just those, so it stays small
+ * and loads in milliseconds however many runs were played.
+ * Recording updates the index right away; the disk work runs on a background
+ * thread so the FX thread never waits for it.
+ *
+ * File layout (big endian):
+ * <pre>
+ * int    magic "DSCR"
+ * short  version
+ * short  padding
+ * records:
+ *   int    payload length
+ *   int    CRC32 of the payload
+ *   long   time (epoch milliseconds)
+ *   long   score
+ *   byte   1 if the run completed the level
+ *   byte[] level name (UTF-8, rest of the payload)
+ * </pre>
+ */
+public class ScoreStore {
+    private static ScoreStore instance; // Singleton 實例
+    public static final int TOP_N = 10;
+    private static final String SCORE_DIR = System.getProperty("dino.scoreDir", "scores");
+    private static final String FILE_NAME = "scores.log";
+    private static final int MAGIC = 0x44534352; // "DSCR"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int FIXED_PAYLOAD_BYTES = 17;
+    // 關卡名稱的長度上限 (超過視為損毀)
+    private static final int MAX_NAME_BYTES = 1024;
+    // 紀錄數超過這個數量，且大多數已不在排行榜上時壓縮
+    private static final int COMPACT_MIN_RECORDS = 256;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd")
+            .withZone(ZoneId.systemDefault());
+
+    private final Path file;
+    // 每個關卡的前 TOP_N 名 (由高到低)
+    private final Map<String, List<Entry>> index = new HashMap<>();
+    // 寫入與壓縮都在這個執行緒上依序進行
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "score-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 只在 writer 執行緒上使用
+    private FileChannel channel;
+    private long records = 0;
+
+    private ScoreStore(Path file) {
+        this.file = file;
+        long start = System.nanoTime();
+        try {
+            open();
+            PerfMetrics.getInstance().record(PerfMetrics.Phase.SCORE_LOAD, System.nanoTime() - start);
+        } catch (IOException e) {
+            System.err.println("無法開啟排行榜：" + file + " - " + e.getMessage());
+            closeChannel();
+        }
+    }
+
+    /**
+     * Loads the log on first use; call it off the FX thread first (e.g. while
+     * a level loads) so the game never waits for it.
+     */
+    public static synchronized ScoreStore getInstance() {
+        if (instance == null) {
+            instance = new ScoreStore(Paths.get(SCORE_DIR, FILE_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Waits (briefly) for the pending writes, when exiting.
+     */
+    public static synchronized void shutdown() {
+        if (instance == null) {
+            return;
+        }
+        instance.writer.shutdown();
+        try {
+            instance.writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        instance.closeChannel();
+    }
+
+    /**
+     * A score on the leaderboard.
+     */
+    public static final class Entry {
+        private final long time;
+        private final long score;
+        private final boolean complete;
+        // 已寫入紀錄檔 (只在 writer 執行緒上使用)；壓縮時只寫已寫入的紀錄，
+        // 還在排隊的紀錄之後由自己的 append 寫入，不會重複
+        private boolean persisted = false;
+
+        Entry(long time, long score, boolean complete) {
+            this.time = time;
+            this.score = score;
+            this.complete = complete;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public long getScore() {
+            return score;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    // 分數高的在前；同分時先達成的在前
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong((Entry e) -> e.score).reversed()
+            .thenComparingLong(e -> e.time);
+
+    /**
+     * Records the score of a run. Returns immediately; the record is written
+     * and forced to disk in the background.
+     *
+     * @param level The level name (file name without extension, or the endless level name)
+     * @return The 1-based rank of the run on the level's leaderboard, 0 if it did not make it
+     */
+    public int record(String level, long score, boolean complete) {
+        Entry entry = new Entry(System.currentTimeMillis(), score, complete);
+        int rank;
+        synchronized (index) {
+            rank = insert(level, entry);
+        }
+        writer.execute(() -> append(level, entry));
+        return rank;
+    }
+
+    /**
+     * @return The leaderboard of the level, best first
+     */
+    public List<Entry> top(String level) {
+        synchronized (index) {
+            List<Entry> entries = index.get(level);
+            return entries == null ? Collections.emptyList() : new ArrayList<>(entries);
+        }
+    }
+
+    /**
+     * @param rank The rank to mark (as returned by record), 0 for none
+     * @return The leaderboard as text, one line per entry
+     */
+    public static String format(List<Entry> entries, int rank) {
+        StringBuilder text = new StringBuilder("排行榜");
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            text.append(String.format("%n%2d. %8d  %s%s%s", i + 1, entry.score,
+                    DATE_FORMAT.format(Instant.ofEpochMilli(entry.time)), entry.complete ? "  過關" : "",
+                    i + 1 == rank ? "  ← 這次" : ""));
+        }
+        return text.toString();
+    }
+
+    // 放進排行榜，回傳名次 (沒有進榜為 0)
+    private int insert(String level, Entry entry) {
+        List<Entry> entries = index.computeIfAbsent(level, k -> new ArrayList<>(TOP_N + 1));
+        int position = Collections.binarySearch(entries, entry, RANKING);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        if (position >= TOP_N) {
+            return 0;
+        }
+        entries.add(position, entry);
+        if (entries.size() > TOP_N) {
+            entries.remove(TOP_N);
+        }
+        return position + 1;
+    }
+
+    // 讀取整個紀錄檔；尾端不完整或檢查碼錯誤的紀錄截掉
+    private void open() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).flip();
+            writeFully(channel, header, 0);
+            channel.force(true);
+            channel.position(HEADER_BYTES);
+            return;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("排行榜檔案過大");
+        }
+        ByteBuffer data = ByteBuffer.allocate((int) size);
+        while (data.hasRemaining()) {
+            if (channel.read(data, data.position()) < 0) {
+                break;
+            }
+        }
+        data.flip();
+        if (data.remaining() < HEADER_BYTES || data.getInt(0) != MAGIC || data.getShort(4) != VERSION) {
+            throw new IOException("不是排行榜檔案");
+        }
+        data.position(HEADER_BYTES);
+
+        CRC32 crc = new CRC32();
+        long valid = HEADER_BYTES;
+        synchronized (index) {
+            while (data.remaining() >= RECORD_HEADER_BYTES) {
+                int length = data.getInt();
+                int checksum = data.getInt();
+                if (length < FIXED_PAYLOAD_BYTES || length > FIXED_PAYLOAD_BYTES + MAX_NAME_BYTES
+                        || length > data.remaining()) {
+                    break;
+                }
+                crc.reset();
+                crc.update(data.array(), data.position(), length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                long time = data.getLong();
+                long score = data.getLong();
+                boolean complete = data.get() != 0;
+                String level = new String(data.array(), data.position(), length - FIXED_PAYLOAD_BYTES,
+                        StandardCharsets.UTF_8);
+                data.position(data.position() + length - FIXED_PAYLOAD_BYTES);
+                Entry entry = new Entry(time, score, complete);
+                entry.persisted = true;
+                insert(level, entry);
+                records++;
+                valid = data.position();
+            }
+        }
+        if (valid < size) {
+            System.err.printf("排行榜檔案尾端有 %d bytes 損毀的紀錄，已截掉%n", size - valid);
+            channel.truncate(valid);
+            channel.force(true);
+        }
+        channel.position(valid);
+        if (needsCompaction()) {
+            writer.execute(this::compact);
+        }
+    }
+
+    // 在 writer 執行緒上：附加一筆紀錄並寫入磁碟
+    private void append(String level, Entry entry) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            ByteBuffer record = encode(level, entry);
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            channel.force(false);
+            entry.persisted = true;
+            records++;
+            if (needsCompaction()) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("寫入排行榜失敗：" + file + " - " + e.getMessage());
+        }
+    }
+
+    private boolean needsCompaction() {
+        int live = 0;
+        synchronized (index) {
+            for (List<Entry> entries : index.values()) {
+                live += entries.size();
+            }
+        }
+        return records >= COMPACT_MIN_RECORDS && records > 2L * live;
+    }
+
+    // 在 writer 執行緒上：只留下排行榜上已寫入的紀錄，寫到暫存檔後取代原本的檔案
+    private void compact() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long start = System.nanoTime();
+        try {
+            long written = 0;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).flip();
+                out.write(header);
+                synchronized (index) {
+                    for (Map.Entry<String, List<Entry>> level : index.entrySet()) {
+                        for (Entry entry : level.getValue()) {
+                            if (!entry.persisted) {
+                                continue;
+                            }
+                            ByteBuffer record = encode(level.getKey(), entry);
+                            while (record.hasRemaining()) {
+                                out.write(record);
+                            }
+                            written++;
+                        }
+                    }
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            records = written;
+            PerfMetrics.getInstance().record(PerfMetrics.Phase.SCORE_COMPACT, System.nanoTime() - start);
+        } catch (IOException e) {
+            System.err.println("壓縮排行榜失敗：" + file + " - " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+                if (!channel.isOpen()) {
+                    channel = FileChannel.open(file, StandardOpenOption.WRITE);
+                    channel.position(channel.size());
+                }
+            } catch (IOException reopen) {
+                System.err.println("無法重新開啟排行榜：" + file + " - " + reopen.getMessage());
+                channel = null;
+            }
+        }
+    }
+
+    private static ByteBuffer encode(String level, Entry entry) {
+        byte[] name = level.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            name = Arrays.copyOf(name, MAX_NAME_BYTES);
+        }
+        int length = FIXED_PAYLOAD_BYTES + name.length;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + length);
+        record.position(RECORD_HEADER_BYTES);
+        record.putLong(entry.time);
+        record.putLong(entry.score);
+        record.put((byte) (entry.complete ? 1 : 0));
+        record.put(name);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_BYTES, length);
+        record.putInt(0, length);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void closeChannel() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("關閉排行榜失敗：" + e.getMessage());
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,90 @@
+package com.dino;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The obstacles of a level in spawn order, as consumed by GameWorld.
+ * The size and the level length are known up front (from a file header or an
+ * index), while the obstacles themselves may still be loading: isReady tells
+ * whether the next one can be read yet.
+ */
+public interface SpawnSource {
+
+    String getSongPath();
+
+    // 無盡模式時為 Integer.MAX_VALUE
+    int size();
+
+    /**
+     * @return true if the level never ends (see ProceduralSpawnSource)
+     */
+    default boolean isEndless() {
+        return false;
+    }
+
+    // 最後一個障礙物的生成位置，即關卡長度
+    double getLastSpawnTriggerX();
+
+    /**
+     * @return The distinct obstacle sizes of the level, for image warm-up
+     */
+    Set<ObstacleVariant> variants();
+
+    /**
+     * @return The problems found while parsing the level, empty for compiled levels
+     */
+    List<LevelDiagnostic> getDiagnostics();
+
+    /**
+     * @return true once every obstacle has been consumed
+     */
+    boolean isExhausted();
+
+    /**
+     * @return true if the next obstacle is loaded and can be read
+     */
+    boolean isReady();
+
+    double spawnTriggerX();
+
+    double width();
+
+    double height();
+
+    double yPosition();
+
+    ObstacleKind kind();
+
+    // 移到下一個障礙物
+    void advance();
+
+    /**
+     * Limits how long isReady may wait for obstacles that are still loading.
+     * The game loop sets one deadline per frame, so all the ticks it runs in
+     * that frame share the same budget.
+     *
+     * @param deadlineNanos The System.nanoTime after which isReady stops waiting
+     */
+    default void setWaitDeadline(long deadlineNanos) {
+    }
+
+    /**
+     * Reports how far the game has progressed, so that a streaming source knows
+     * how far ahead to read.
+     */
+    default void setGameWorldDistance(double gameWorldDistance) {
+    }
+
+    // 回到第一個障礙物 (重新開始關卡)
+    void rewind();
+
+    default void close() {
+    }
+
+    /**
+     * @return An independent source at the same position; close it when done,
+     *         since it may hold its own file and reader thread
+     */
+    SpawnSource fork();
+}
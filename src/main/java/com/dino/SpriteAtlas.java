@@ -0,0 +1,246 @@
+package com.dino;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * All sprites of a level packed into one texture. Drawing every sprite from
+ * the same image lets the renderer batch them instead of switching textures
+ * per obstacle, and only the atlas is uploaded to the graphics card.
+ *
+ * Sprites are packed on shelves (rows of similar height, tallest first). Each
+ * sprite is surrounded by a copy of its edge pixels, so filtering at
+ * sub-pixel positions never samples a neighbouring sprite.
+ */
+public class SpriteAtlas {
+    // 常見顯示卡支援的最大材質尺寸
+    private static final int MAX_SIZE = 4096;
+    // 每個圖片四周複製一圈邊緣像素
+    private static final int PADDING = 1;
+
+    private final Image image;
+    private final Map<Sprite, Region> regions;
+
+    private SpriteAtlas(Image image, Map<Sprite, Region> regions) {
+        this.image = image;
+        this.regions = regions;
+    }
+
+    /**
+     * A sprite: either a rectangle of the atlas or, for sprites that were not
+     * packed, a whole image of its own.
+     */
+    public static class Region {
+        private final Image image;
+        private final double x;
+        private final double y;
+        private final double width;
+        private final double height;
+
+        Region(Image image, double x, double y, double width, double height) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        // 整張圖片就是一個區塊
+        public static Region of(Image image) {
+            return new Region(image, 0, 0, image.getWidth(), image.getHeight());
+        }
+
+        public Image getImage() {
+            return image;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        public double getWidth() {
+            return width;
+        }
+
+        public double getHeight() {
+            return height;
+        }
+    }
+
+    /**
+     * Packs the given images, as decoded by ImageCache, into an atlas. Safe to
+     * call from a background thread. Images that do not fit are left out and
+     * keep being drawn on their own.
+     */
+    public static SpriteAtlas pack(Collection<Sprite> sprites) {
+        List<Entry> entries = new ArrayList<>();
+        ImageCache cache = ImageCache.getInstance();
+        for (Sprite sprite : new LinkedHashSet<>(sprites)) {
+            Entry entry = new Entry(sprite, cache.get(sprite.path, sprite.width, sprite.height, false));
+            if (entry.width > 0 && entry.height > 0) {
+                entries.add(entry);
+            }
+        }
+        // 高的先放，同一層的高度差距較小
+        entries.sort(Comparator.comparingInt((Entry e) -> e.height).reversed());
+
+        long area = 0;
+        int widest = 0;
+        for (Entry entry : entries) {
+            area += (long) entry.paddedWidth() * entry.paddedHeight();
+            widest = Math.max(widest, entry.paddedWidth());
+        }
+        // 寬度取接近正方形的 2 的次方
+        int atlasWidth = 64;
+        while (atlasWidth < MAX_SIZE && ((long) atlasWidth * atlasWidth < area || atlasWidth < widest)) {
+            atlasWidth *= 2;
+        }
+
+        int shelfX = 0;
+        int shelfY = 0;
+        int shelfHeight = 0;
+        List<Entry> placed = new ArrayList<>();
+        for (Entry entry : entries) {
+            int w = entry.paddedWidth();
+            int h = entry.paddedHeight();
+            if (w > atlasWidth) {
+                continue;
+            }
+            if (shelfX + w > atlasWidth) {
+                // 開新的一層
+                shelfY += shelfHeight;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+            if (shelfY + h > MAX_SIZE) {
+                continue; // 放不下，之後單獨繪製
+            }
+            entry.x = shelfX + PADDING;
+            entry.y = shelfY + PADDING;
+            shelfX += w;
+            shelfHeight = Math.max(shelfHeight, h);
+            placed.add(entry);
+        }
+        int atlasHeight = Math.max(1, shelfY + shelfHeight);
+
+        WritableImage atlas = new WritableImage(atlasWidth, atlasHeight);
+        PixelWriter writer = atlas.getPixelWriter();
+        Map<Sprite, Region> regions = new HashMap<>();
+        for (Entry entry : placed) {
+            PixelReader reader = entry.image.getPixelReader();
+            if (reader == null) {
+                continue;
+            }
+            blit(writer, reader, entry);
+            regions.put(entry.sprite, new Region(atlas, entry.x, entry.y, entry.width, entry.height));
+        }
+        return new SpriteAtlas(atlas, regions);
+    }
+
+    // 複製圖片，並把邊緣像素往外複製一格
+    private static void blit(PixelWriter writer, PixelReader reader, Entry e) {
+        int w = e.width;
+        int h = e.height;
+        writer.setPixels(e.x, e.y, w, h, reader, 0, 0);
+        writer.setPixels(e.x - 1, e.y, 1, h, reader, 0, 0);
+        writer.setPixels(e.x + w, e.y, 1, h, reader, w - 1, 0);
+        writer.setPixels(e.x, e.y - 1, w, 1, reader, 0, 0);
+        writer.setPixels(e.x, e.y + h, w, 1, reader, 0, h - 1);
+        writer.setArgb(e.x - 1, e.y - 1, reader.getArgb(0, 0));
+        writer.setArgb(e.x + w, e.y - 1, reader.getArgb(w - 1, 0));
+        writer.setArgb(e.x - 1, e.y + h, reader.getArgb(0, h - 1));
+        writer.setArgb(e.x + w, e.y + h, reader.getArgb(w - 1, h - 1));
+    }
+
+    /**
+     * @return The packed sprite for the image ImageCache decodes at this size,
+     *         or null if it is not in the atlas
+     */
+    public Region find(String path, double width, double height) {
+        return regions.get(new Sprite(path, width, height));
+    }
+
+    public Image getImage() {
+        return image;
+    }
+
+    public int size() {
+        return regions.size();
+    }
+
+    private static final class Entry {
+        final Sprite sprite;
+        final Image image;
+        final int width;
+        final int height;
+        int x;
+        int y;
+
+        Entry(Sprite sprite, Image image) {
+            this.sprite = sprite;
+            this.image = image;
+            this.width = (int) image.getWidth();
+            this.height = (int) image.getHeight();
+        }
+
+        int paddedWidth() {
+            return width + 2 * PADDING;
+        }
+
+        int paddedHeight() {
+            return height + 2 * PADDING;
+        }
+    }
+
+    /**
+     * An image at the size it is drawn, as requested from ImageCache.
+     */
+    public static final class Sprite {
+        private final String path;
+        private final double width;
+        private final double height;
+
+        public Sprite(String path, double width, double height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+
+        public static Sprite of(ObstacleVariant variant) {
+            return new Sprite(variant.getKind().getImagePath(), variant.getWidth(), variant.getHeight());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Sprite)) {
+                return false;
+            }
+            Sprite other = (Sprite) o;
+            return Double.compare(width, other.width) == 0 && Double.compare(height, other.height) == 0
+                    && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, width, height);
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package com.dino;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SpawnSource that streams a level file from disk, for levels too long to keep
+ * in memory. A background thread reads only a bounded window of obstacles ahead
+ * of the game world distance into a ring buffer, which the game thread drains
+ * without locking (single producer, single consumer).
+ *
+ * The size and length come from the header of compiled levels; text levels are
+ * scanned once up front, without keeping their obstacles.
+ */
+public class StreamingSpawnSource implements SpawnSource {
+    // 緩衝區最多保留的障礙物數量 (2 的次方)
+    static final int CAPACITY = 4096;
+    // 只讀到 gameWorldDistance 之後這麼遠的障礙物
+    static final double LOOKAHEAD = 4 * GameWorld.WIDTH;
+    // 讀取執行緒等待空間時的休眠時間
+    private static final long PARK_NANOS = 500_000;
+    // 沒有設定 deadline 時 (無畫面模擬)，每次等待讀取執行緒的上限
+    private static final long MAX_WAIT_NANOS = 20_000_000;
+    private static final long WAIT_PARK_NANOS = 100_000;
+    // 編譯過的關卡每次讀取的障礙物數量
+    private static final int CHUNK = 1024;
+
+    private final Path file;
+    private final boolean compiled;
+    private final String songPath;
+    private final int count;
+    private final double lastSpawnTriggerX;
+    private final Set<ObstacleVariant> variants;
+    private final List<LevelDiagnostic> diagnostics;
+    // 編譯過的關卡中障礙物資料的位置
+    private final int dataOffset;
+
+    // 環狀緩衝區，以 index & MASK 定位
+    private static final int MASK = CAPACITY - 1;
+    private final double[] spawnTriggerX = new double[CAPACITY];
+    private final double[] width = new double[CAPACITY];
+    private final double[] height = new double[CAPACITY];
+    private final double[] yPosition = new double[CAPACITY];
+    private final ObstacleKind[] kind = new ObstacleKind[CAPACITY];
+
+    // writeIndex 只由讀取執行緒寫入，readIndex 只由遊戲執行緒寫入
+    private volatile long writeIndex = 0;
+    private volatile long readIndex = 0;
+    private volatile double gameWorldDistance = 0;
+    private volatile boolean finished = false;
+    private volatile boolean stopped = false;
+    // 遊戲執行緒上次看到的 writeIndex，避免每次都讀 volatile
+    private long knownWriteIndex = 0;
+    // 遊戲迴圈設定的等待期限 (同一個畫面的所有 tick 共用)
+    private long waitDeadline;
+    private boolean hasWaitDeadline = false;
+    // 讀取過慢的警告只印一次
+    private boolean stallReported = false;
+    private Thread reader;
+
+    private StreamingSpawnSource(Path file, boolean compiled, String songPath, int count, double lastSpawnTriggerX,
+            Set<ObstacleVariant> variants, List<LevelDiagnostic> diagnostics, int dataOffset) {
+        this.file = file;
+        this.compiled = compiled;
+        this.songPath = songPath;
+        this.count = count;
+        this.lastSpawnTriggerX = lastSpawnTriggerX;
+        this.variants = Collections.unmodifiableSet(variants);
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+        this.dataOffset = dataOffset;
+        startReader();
+    }
+
+    /**
+     * Opens a level file for streaming; compiled levels are recognized by the
+     * .dlvl extension.
+     */
+    public static StreamingSpawnSource open(Path file) throws IOException {
+        if (file.getFileName().toString().endsWith(BinaryLevel.EXTENSION)) {
+            return openCompiled(file);
+        }
+        return openText(file);
+    }
+
+    private static StreamingSpawnSource openCompiled(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer headerBuffer = ByteBuffer.allocate((int) Math.min(channel.size(), BinaryLevel.MAX_HEADER_BYTES));
+            readFully(channel, headerBuffer, 0);
+            BinaryLevel.Header header = BinaryLevel.readHeader(headerBuffer);
+            if (header.dataOffset + 17L * header.count > channel.size()) {
+                throw new IOException("關卡檔案已損毀：障礙物數量 " + header.count);
+            }
+            Set<ObstacleVariant> variants = new LinkedHashSet<>();
+            try (RowReader rows = new CompiledRowReader(channel, header.dataOffset, header.count, false)) {
+                Row row = new Row();
+                while (rows.next(row)) {
+                    variants.add(new ObstacleVariant(row.kind, row.width, row.height));
+                }
+            }
+            return new StreamingSpawnSource(file, true, header.songPath, header.count, header.lastSpawnTriggerX,
+                    variants, Collections.emptyList(), header.dataOffset);
+        }
+    }
+
+    // 文字關卡沒有檔頭，先掃描一次取得數量、長度與障礙物種類
+    private static StreamingSpawnSource openText(Path file) throws IOException {
+        List<LevelDiagnostic> diagnostics = new ArrayList<>();
+        try (TextRowReader rows = new TextRowReader(file, diagnostics)) {
+            int count = 0;
+            double last = 0;
+            Set<ObstacleVariant> variants = new LinkedHashSet<>();
+            Row row = new Row();
+            while (rows.next(row)) {
+                count++;
+                last = row.spawnTriggerX;
+                variants.add(new ObstacleVariant(row.kind, row.width, row.height));
+            }
+            return new StreamingSpawnSource(file, false, rows.songPath, count, last, variants, diagnostics, 0);
+        }
+    }
+
+    @Override
+    public String getSongPath() {
+        return songPath;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public double getLastSpawnTriggerX() {
+        return lastSpawnTriggerX;
+    }
+
+    @Override
+    public Set<ObstacleVariant> variants() {
+        return variants;
+    }
+
+    @Override
+    public List<LevelDiagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    @Override
+    public boolean isExhausted() {
+        long read = readIndex;
+        // 讀取失敗時 finished 也會成立，剩下的障礙物視為不存在
+        return read >= count || (finished && read >= writeIndex);
+    }
+
+    /**
+     * Waits for the reader if it has not caught up yet, so that obstacles spawn
+     * on the same tick as with a fully loaded level. This normally only happens
+     * right after opening or rewinding: afterwards the reader stays ahead. The
+     * wait ends at the deadline set by setWaitDeadline (one budget per frame),
+     * or after MAX_WAIT_NANOS per call if none was set. If the disk stalls
+     * longer, this returns false and the spawn is deferred to a later tick (the
+     * run then no longer matches a fully loaded level) instead of freezing the
+     * game thread.
+     */
+    @Override
+    public boolean isReady() {
+        long read = readIndex;
+        if (read < knownWriteIndex) {
+            return true;
+        }
+        long deadline = hasWaitDeadline ? waitDeadline : System.nanoTime() + MAX_WAIT_NANOS;
+        while ((knownWriteIndex = writeIndex) <= read) {
+            if (finished) {
+                // finished 之後 writeIndex 不再改變，再讀一次以免錯過最後一筆
+                knownWriteIndex = writeIndex;
+                return read < knownWriteIndex;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                if (!stallReported) {
+                    stallReported = true;
+                    System.err.println("串流關卡讀取過慢，障礙物延後生成：" + file);
+                }
+                return false;
+            }
+            LockSupport.parkNanos(WAIT_PARK_NANOS);
+        }
+        return true;
+    }
+
+    @Override
+    public void setWaitDeadline(long deadlineNanos) {
+        waitDeadline = deadlineNanos;
+        hasWaitDeadline = true;
+    }
+
+    @Override
+    public double spawnTriggerX() {
+        return spawnTriggerX[slot()];
+    }
+
+    @Override
+    public double width() {
+        return width[slot()];
+    }
+
+    @Override
+    public double height() {
+        return height[slot()];
+    }
+
+    @Override
+    public double yPosition() {
+        return yPosition[slot()];
+    }
+
+    @Override
+    public ObstacleKind kind() {
+        return kind[slot()];
+    }
+
+    @Override
+    public void advance() {
+        readIndex = readIndex + 1;
+    }
+
+    @Override
+    public void setGameWorldDistance(double gameWorldDistance) {
+        this.gameWorldDistance = gameWorldDistance;
+    }
+
+    @Override
+    public void rewind() {
+        if (reader != null && readIndex == 0) {
+            return; // 還沒開始消耗，不需要重新讀取
+        }
+        stopReader();
+        writeIndex = 0;
+        readIndex = 0;
+        knownWriteIndex = 0;
+        gameWorldDistance = 0;
+        finished = false;
+        startReader();
+    }
+
+    @Override
+    public void close() {
+        stopReader();
+    }
+
+    /**
+     * Reopens the file at the current obstacle, with a reader thread of its own.
+     */
+    @Override
+    public SpawnSource fork() {
+        StreamingSpawnSource copy = new StreamingSpawnSource(file, compiled, songPath, count, lastSpawnTriggerX,
+                variants, diagnostics, dataOffset);
+        // 索引是關卡中的位置，複本的讀取執行緒從這裡開始讀
+        long position = readIndex;
+        copy.readIndex = position;
+        copy.writeIndex = position;
+        copy.knownWriteIndex = position;
+        copy.gameWorldDistance = gameWorldDistance;
+        copy.startReader();
+        return copy;
+    }
+
+    private int slot() {
+        long read = readIndex;
+        if (read >= knownWriteIndex) {
+            throw new IllegalStateException("Obstacle " + read + " is not loaded yet");
+        }
+        return (int) (read & MASK);
+    }
+
+    private void startReader() {
+        stopped = false;
+        reader = new Thread(this::readLoop, "level-reader-" + file.getFileName());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void stopReader() {
+        if (reader == null) {
+            return;
+        }
+        stopped = true;
+        LockSupport.unpark(reader);
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        reader = null;
+    }
+
+    private void readLoop() {
+        try (RowReader rows = openRows()) {
+            Row row = new Row();
+            // 從頭開始，或從 fork 時的位置開始
+            long write = writeIndex;
+            rows.skip(write);
+            double lastSpawnTriggerX = Double.NEGATIVE_INFINITY;
+            while (!stopped) {
+                // 等待緩衝區有空間，且上一個障礙物已進入讀取範圍；
+                // 讀取範圍外的第一個障礙物仍會放入緩衝區，遊戲執行緒才知道下一個生成位置
+                while (!stopped && (write - readIndex >= CAPACITY
+                        || lastSpawnTriggerX > gameWorldDistance + LOOKAHEAD)) {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+                if (stopped || !rows.next(row)) {
+                    break;
+                }
+                lastSpawnTriggerX = row.spawnTriggerX;
+                int slot = (int) (write & MASK);
+                spawnTriggerX[slot] = row.spawnTriggerX;
+                width[slot] = row.width;
+                height[slot] = row.height;
+                yPosition[slot] = row.yPosition;
+                kind[slot] = row.kind;
+                write++;
+                // volatile 寫入，之前寫入的欄位對遊戲執行緒可見
+                writeIndex = write;
+            }
+        } catch (IOException e) {
+            System.err.println("讀取關卡時發生錯誤：" + file + " - " + e.getMessage());
+        } finally {
+            finished = true;
+        }
+    }
+
+    private RowReader openRows() throws IOException {
+        if (compiled) {
+            return new CompiledRowReader(FileChannel.open(file, StandardOpenOption.READ), dataOffset, count, true);
+        }
+        // 掃描時已收集過格式錯誤
+        return new TextRowReader(file, null);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("關卡檔案提早結束");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static final class Row {
+        double spawnTriggerX;
+        double width;
+        double height;
+        double yPosition;
+        ObstacleKind kind;
+    }
+
+    private interface RowReader extends Closeable {
+        // 讀取下一個障礙物，沒有更多時回傳 false
+        boolean next(Row row) throws IOException;
+
+        // 跳過前面的障礙物
+        default void skip(long rows) throws IOException {
+            Row row = new Row();
+            for (long i = 0; i < rows && next(row); i++) {
+                // 文字關卡只能逐行讀過去
+            }
+        }
+    }
+
+    private static final class TextRowReader implements RowReader {
+        private final BufferedReader reader;
+        private final List<LevelDiagnostic> diagnostics;
+        private int lineNumber = 1;
+        final String songPath;
+
+        TextRowReader(Path file, List<LevelDiagnostic> diagnostics) throws IOException {
+            this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+            this.diagnostics = diagnostics;
+            String song = reader.readLine();
+            if (song == null) {
+                reader.close();
+                throw new IOException("關卡檔案是空的");
+            }
+            this.songPath = song.trim();
+        }
+
+        @Override
+        public boolean next(Row row) throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                LevelObstacleData data = LevelLoader.parseLine(line, lineNumber, diagnostics);
+                if (data != null) {
+                    row.spawnTriggerX = data.spawnTriggerX;
+                    row.width = data.width;
+                    row.height = data.height;
+                    row.yPosition = data.yPosition;
+                    row.kind = data.kind;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    // 依序讀取五個陣列中同一段範圍的障礙物
+    private static final class CompiledRowReader implements RowReader {
+        private final FileChannel channel;
+        private final long dataOffset;
+        private final int count;
+        private final boolean ownsChannel;
+        private final ByteBuffer[] columns = new ByteBuffer[5];
+        private int next = 0;
+        private int chunkEnd = 0;
+
+        CompiledRowReader(FileChannel channel, long dataOffset, int count, boolean ownsChannel) {
+            this.channel = channel;
+            this.dataOffset = dataOffset;
+            this.count = count;
+            this.ownsChannel = ownsChannel;
+            for (int c = 0; c < 4; c++) {
+                columns[c] = ByteBuffer.allocate(4 * CHUNK);
+            }
+            columns[4] = ByteBuffer.allocate(CHUNK);
+        }
+
+        @Override
+        public void skip(long rows) {
+            // 欄位的位置可以直接算出來，下次 next 時從這裡讀
+            next = (int) Math.min(count, next + rows);
+            chunkEnd = next;
+        }
+
+        @Override
+        public boolean next(Row row) throws IOException {
+            if (next >= count) {
+                return false;
+            }
+            if (next == chunkEnd) {
+                readChunk();
+            }
+            row.spawnTriggerX = columns[0].getFloat();
+            row.width = columns[1].getFloat();
+            row.height = columns[2].getFloat();
+            row.yPosition = columns[3].getFloat();
+            row.kind = BinaryLevel.checkTag(columns[4].get(), next);
+            next++;
+            return true;
+        }
+
+        private void readChunk() throws IOException {
+            int rows = Math.min(CHUNK, count - next);
+            for (int c = 0; c < 5; c++) {
+                int elementSize = c < 4 ? 4 : 1;
+                ByteBuffer column = columns[c];
+                column.clear();
+                column.limit(rows * elementSize);
+                readFully(channel, column, dataOffset + (long) c * 4 * count + (long) next * elementSize);
+            }
+            chunkEnd = next + rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (ownsChannel) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.dino;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * SpawnSource over a level that is fully available, in memory or mapped.
+ */
+public class TableSpawnSource implements SpawnSource {
+    private final LevelTable table;
+    private int index = 0;
+    private Set<ObstacleVariant> variants;
+
+    public TableSpawnSource(LevelTable table) {
+        this.table = table;
+    }
+
+    @Override
+    public String getSongPath() {
+        return table.getSongPath();
+    }
+
+    @Override
+    public int size() {
+        return table.size();
+    }
+
+    @Override
+    public double getLastSpawnTriggerX() {
+        if (table instanceof BinaryLevel) {
+            return ((BinaryLevel) table).getLastSpawnTriggerX();
+        }
+        return table.size() == 0 ? 0 : table.spawnTriggerX(table.size() - 1);
+    }
+
+    @Override
+    public Set<ObstacleVariant> variants() {
+        if (variants == null) {
+            variants = new LinkedHashSet<>();
+            for (int i = 0; i < table.size(); i++) {
+                variants.add(new ObstacleVariant(table.kind(i), table.width(i), table.height(i)));
+            }
+        }
+        return variants;
+    }
+
+    @Override
+    public List<LevelDiagnostic> getDiagnostics() {
+        if (table instanceof LevelData) {
+            return ((LevelData) table).getDiagnostics();
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isExhausted() {
+        return index >= table.size();
+    }
+
+    @Override
+    public boolean isReady() {
+        return index < table.size();
+    }
+
+    @Override
+    public double spawnTriggerX() {
+        return table.spawnTriggerX(index);
+    }
+
+    @Override
+    public double width() {
+        return table.width(index);
+    }
+
+    @Override
+    public double height() {
+        return table.height(index);
+    }
+
+    @Override
+    public double yPosition() {
+        return table.yPosition(index);
+    }
+
+    @Override
+    public ObstacleKind kind() {
+        return table.kind(index);
+    }
+
+    @Override
+    public void advance() {
+        index++;
+    }
+
+    @Override
+    public void rewind() {
+        index = 0;
+    }
+
+    public LevelTable getTable() {
+        return table;
+    }
+
+    // 已經生成 (advance 過) 的障礙物數量
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Moves to the given obstacle, as if the ones before it had been consumed.
+     */
+    public void seek(int index) {
+        if (index < 0 || index > table.size()) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + table.size());
+        }
+        this.index = index;
+    }
+
+    @Override
+    public SpawnSource fork() {
+        TableSpawnSource copy = new TableSpawnSource(table);
+        copy.index = index;
+        copy.variants = variants;
+        return copy;
+    }
+}
@@ -1,27 +1,14 @@
 package com.dino;
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
-import javafx.scene.paint.Color;
-
 public class Wave extends Player {
     public static final int WAVE_WIDTH = PLAYER_WIDTH;
     public static final int WAVE_HEIGHT = PLAYER_HEIGHT;
-    private static final double VERTICAL_SPEED = 10; // Constant speed for rising/falling
-
-
-    private Image waveUpImage;
-    private Image waveDownImage;
-
-    public Wave() {
-        this.waveUpImage = new Image(getClass().getResourceAsStream("/picture/wave_up.png"), WAVE_WIDTH, WAVE_HEIGHT, false, false);
-        this.waveDownImage = new Image(getClass().getResourceAsStream("/picture/wave_down.png"), WAVE_WIDTH, WAVE_HEIGHT, false, false);
-    }
-
-
+    private static final double VERTICAL_SPEED = 600; // Constant speed for rising/falling, in pixels per second
 
     @Override
-    public void update() {
+    public void update(double dt) {
+        prevY = y;
+
         // If up key is pressed, rise at constant speed
         if (isUpKeyPressed) {
             yVelocity = -VERTICAL_SPEED;
@@ -31,7 +18,7 @@ public class Wave extends Player {
         }
 
         // Update position
-        y += yVelocity;
+        y += yVelocity * dt;
 
         // Prevent going above the screen
         if (y < 0) {
@@ -39,18 +26,8 @@ public class Wave extends Player {
         }
 
         // Prevent going below the ground
-        if (y >= MainApplication.getHEIGHT() - 50 - WAVE_HEIGHT) {
-            y = MainApplication.getHEIGHT() - 50 - WAVE_HEIGHT;
-        }
-    }
-
-    @Override
-    public void render(GraphicsContext gc) {
-        // Use waveUpImage when rising (negative yVelocity), waveDownImage when falling (positive yVelocity)
-        if (yVelocity < 0) {
-            gc.drawImage(waveUpImage, x, y);
-        } else {
-            gc.drawImage(waveDownImage, x, y);
+        if (y >= GameWorld.GROUND_Y - WAVE_HEIGHT) {
+            y = GameWorld.GROUND_Y - WAVE_HEIGHT;
         }
     }
 }
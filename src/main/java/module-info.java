@@ -0,0 +1,11 @@
+module com.dino {
+    requires javafx.controls;
+    requires javafx.fxml;
+    requires javafx.media;
+    // BeatMapper 用 javax.sound 解碼音訊
+    requires java.desktop;
+
+    // FXML 以反射建立控制器並注入欄位
+    opens com.dino to javafx.fxml;
+    exports com.dino;
+}